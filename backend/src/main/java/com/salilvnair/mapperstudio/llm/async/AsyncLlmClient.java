@@ -0,0 +1,107 @@
+package com.salilvnair.mapperstudio.llm.async;
+
+import com.github.salilvnair.convengine.llm.core.LlmClient;
+import com.salilvnair.mapperstudio.llm.provider.BatchEmbeddingClient;
+import com.salilvnair.mapperstudio.llm.provider.StreamingJsonClient;
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmDeferredException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking view of the active {@link LlmClient}: each call runs on a virtual thread of {@link LlmCallExecutor}
+ * and completes a {@link CompletableFuture}, so callers can overlap calls and compose them without holding a
+ * platform thread. {@code MappingSuggestionService} sends its AI chunks and embedding batches through it. The calls go through the provider client unchanged, so response caching, rate limiting and the
+ * {@code ce_llm_call_log} row (with the caller's conversation id) behave as for the blocking methods. Cancelling a
+ * future or passing its deadline interrupts the call; an interrupted call is logged as failed.
+ */
+@Component
+@RequiredArgsConstructor
+public class AsyncLlmClient {
+
+    private final LlmClient llmClient;
+    private final LlmCallExecutor llmCallExecutor;
+
+    /**
+     * {@link LlmClient#generateJsonStrict} with the default {@code mapper.llm.async.deadline-ms}.
+     */
+    public CompletableFuture<String> generateJsonStrictAsync(String hint, String jsonSchema, String context) {
+        return generateJsonStrictAsync(hint, jsonSchema, context, llmCallExecutor.deadline());
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} deadline; the future fails with a {@code TimeoutException} after it
+     */
+    public CompletableFuture<String> generateJsonStrictAsync(String hint, String jsonSchema, String context, long deadlineNanos) {
+        return llmCallExecutor.submit(() -> llmClient.generateJsonStrict(hint, jsonSchema, context), deadlineNanos);
+    }
+
+    /**
+     * {@link StreamingJsonClient#generateJsonStrictStreaming} when the provider streams, so {@code onElement} sees the
+     * rows of {@code arrayField} while the answer is generated; otherwise a plain {@link LlmClient#generateJsonStrict}
+     * and {@code onElement} is not called. The future holds the complete answer either way.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} deadline; the future fails with a {@code TimeoutException} after it
+     */
+    public CompletableFuture<String> generateJsonStrictStreamingAsync(
+            String hint,
+            String jsonSchema,
+            String context,
+            String arrayField,
+            Consumer<String> onElement,
+            long deadlineNanos
+    ) {
+        return llmCallExecutor.submit(() -> llmClient instanceof StreamingJsonClient streamingClient
+                ? streamingClient.generateJsonStrictStreaming(hint, jsonSchema, context, arrayField, onElement)
+                : llmClient.generateJsonStrict(hint, jsonSchema, context), deadlineNanos);
+    }
+
+    /**
+     * One vector per input, in input order, with the default {@code mapper.llm.async.deadline-ms}.
+     */
+    public CompletableFuture<float[][]> generateEmbeddingsAsync(List<String> inputs) {
+        return generateEmbeddingsAsync(inputs, llmCallExecutor.deadline());
+    }
+
+    /**
+     * Batched ({@link BatchEmbeddingClient}) when the provider supports it, one request per input otherwise or when the
+     * batch request fails. An input whose own request fails gets an empty vector, except when the provider is
+     * saturated ({@link LlmDeferredException#retryAfterOf}): then the future fails, since further requests would only
+     * be deferred as well.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} deadline; the future fails with a {@code TimeoutException} after it
+     */
+    public CompletableFuture<float[][]> generateEmbeddingsAsync(List<String> inputs, long deadlineNanos) {
+        List<String> texts = new ArrayList<>(inputs);
+        return llmCallExecutor.submit(() -> {
+            if (llmClient instanceof BatchEmbeddingClient batchClient) {
+                try {
+                    return batchClient.generateEmbeddings(texts);
+                } catch (Exception e) {
+                    if (LlmDeferredException.retryAfterOf(e) != null) {
+                        throw e;
+                    }
+                }
+            }
+            float[][] embeddings = new float[texts.size()][];
+            for (int i = 0; i < texts.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("embedding call cancelled");
+                }
+                try {
+                    embeddings[i] = llmClient.generateEmbedding(texts.get(i));
+                } catch (Exception e) {
+                    if (LlmDeferredException.retryAfterOf(e) != null) {
+                        throw e;
+                    }
+                    embeddings[i] = new float[0];
+                }
+            }
+            return embeddings;
+        }, deadlineNanos);
+    }
+}
@@ -0,0 +1,105 @@
+package com.salilvnair.mapperstudio.llm.async;
+
+import com.github.salilvnair.convengine.llm.context.LlmInvocationContext;
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent LLM/embedding calls side by side on virtual threads, behind {@link AsyncLlmClient}. How many of
+ * them reach the provider at once is up to {@link com.salilvnair.mapperstudio.llm.ratelimit.LlmRateLimiter}, which
+ * hands out in-flight slots in rate limit order. The caller's {@link LlmInvocationContext} and {@link LlmPriority} are carried onto each thread so call
+ * logs keep their conversation id and rate limiting keeps the turn's priority. Anything still running at the
+ * deadline is cancelled by interrupting its thread: a call waiting for rate-limit admission gives up, and one waiting
+ * on the provider has its HTTP exchange cancelled (see {@code LlmHttpTransport}) or its streamed read interrupted.
+ */
+@Component
+public class LlmCallExecutor {
+
+    private final ExecutorService pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-call-", 0).factory());
+    private final boolean enabled;
+    private final long deadlineMillis;
+
+    public LlmCallExecutor(
+            @Value("${mapper.llm.async.enabled:true}") boolean enabled,
+            @Value("${mapper.llm.async.deadline-ms:120000}") long deadlineMillis
+    ) {
+        this.enabled = enabled;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * A {@link System#nanoTime()} deadline {@code deadline-ms} from now, for one request's worth of calls.
+     */
+    public long deadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1L, deadlineMillis));
+    }
+
+    /**
+     * Starts {@code task} on a virtual thread (carrying the caller's context, see the class comment) and returns
+     * its future. Cancelling the future, or reaching {@code deadlineNanos} (the future then fails with a
+     * {@link TimeoutException}), interrupts the task, which aborts its HTTP exchange. With
+     * {@code mapper.llm.async.enabled=false} the task runs on the calling thread before this returns.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, long deadlineNanos) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!enabled) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                result.completeExceptionally(new TimeoutException("LLM call deadline passed before it started"));
+                return result;
+            }
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        LlmInvocationContext invocation = LlmInvocationContext.get();
+        boolean interactive = LlmPriority.isInteractive();
+        Future<?> running = pool.submit(() -> {
+            try {
+                result.complete(runWithContext(task, invocation, interactive));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> T runWithContext(Callable<T> task, LlmInvocationContext invocation, boolean interactive) throws Exception {
+        try {
+            if (invocation != null) {
+                LlmInvocationContext.set(invocation.conversationId(), invocation.intent(), invocation.state());
+            }
+            if (interactive) {
+                LlmPriority.markInteractive();
+            }
+            return task.call();
+        } finally {
+            LlmInvocationContext.clear();
+            LlmPriority.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,233 @@
+package com.salilvnair.mapperstudio.llm.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salilvnair.mapperstudio.task.service.cache.ContentHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Completion texts of deterministic (temperature 0) calls, keyed by SHA-256 of provider, model, temperature, output
+ * type, strictness, hint, JSON schema and user context, so an unchanged prompt re-run shortly after is answered
+ * locally. JSON answers are only kept when they parse, so a malformed answer is retried rather than replayed. Entries
+ * expire after {@code ttl-minutes}; an LRU bounded by total response characters sits in front of the
+ * mps_llm_response_cache table. Call log rows of hits carry the provider with {@link #HIT_PROVIDER_SUFFIX}.
+ */
+@Component
+public class LlmResponseCache {
+
+    public static final String HIT_PROVIDER_SUFFIX = ":cache";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper mapper;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long chars;
+    private final Object sqliteLock = new Object();
+    private long sqliteRows = -1L;
+
+    private final Counter memoryHits;
+    private final Counter sqliteHits;
+    private final Counter misses;
+
+    @Value("${mapper.llm.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.llm.response-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${mapper.llm.response-cache.max-chars:16000000}")
+    private long maxChars;
+
+    @Value("${mapper.llm.response-cache.sqlite-enabled:true}")
+    private boolean sqliteEnabled;
+
+    @Value("${mapper.llm.response-cache.sqlite-max-entries:5000}")
+    private int sqliteMaxEntries;
+
+    public LlmResponseCache(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = objectMapper;
+        this.memoryHits = meterRegistry.counter("mapper.llm.response.cache.requests", "result", "hit", "tier", "memory");
+        this.sqliteHits = meterRegistry.counter("mapper.llm.response.cache.requests", "result", "hit", "tier", "sqlite");
+        this.misses = meterRegistry.counter("mapper.llm.response.cache.requests", "result", "miss", "tier", "none");
+        Gauge.builder("mapper.llm.response.cache.entries", this, LlmResponseCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Only temperature 0 calls are cached; anything else is expected to vary between calls.
+     */
+    public boolean cacheable(Double temperature) {
+        return enabled && temperature != null && temperature == 0d;
+    }
+
+    public static String key(String provider, String model, Double temperature, Object type, boolean strictJson, String hint, String jsonSchema, String userContext) {
+        return ContentHasher.sha256Hex(
+                provider,
+                model,
+                temperature == null ? null : temperature.toString(),
+                type == null ? null : type.toString(),
+                Boolean.toString(strictJson),
+                hint,
+                jsonSchema,
+                userContext
+        );
+    }
+
+    /**
+     * The cached response for {@code key}, or null when there is none or it has expired.
+     */
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        String response = getFromMemory(key, now);
+        if (response != null) {
+            memoryHits.increment();
+            return response;
+        }
+        if (sqliteEnabled) {
+            Entry stored = getFromSqlite(key, now);
+            if (stored != null) {
+                sqliteHits.increment();
+                putInMemory(key, stored);
+                return stored.response();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores {@code response}; with {@code json} set, only when it parses as JSON.
+     */
+    public void put(String key, String provider, String model, String response, boolean json) {
+        if (response == null || (json && !parsesAsJson(response))) {
+            return;
+        }
+        Entry entry = new Entry(response, System.currentTimeMillis() + Math.max(1L, ttlMinutes) * 60_000L);
+        putInMemory(key, entry);
+        if (sqliteEnabled) {
+            putInSqlite(key, provider, model, entry);
+        }
+    }
+
+    private boolean parsesAsJson(String response) {
+        try {
+            mapper.readTree(response);
+            return !response.isBlank();
+        } catch (Exception ignored) {
+            return false;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        chars = 0;
+    }
+
+    private synchronized String getFromMemory(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= now) {
+            entries.remove(key);
+            chars -= entry.response().length();
+            return null;
+        }
+        return entry.response();
+    }
+
+    private synchronized void putInMemory(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            chars -= previous.response().length();
+        }
+        chars += entry.response().length();
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (chars > maxChars && entries.size() > 1 && eldest.hasNext()) {
+            chars -= eldest.next().getValue().response().length();
+            eldest.remove();
+        }
+    }
+
+    private Entry getFromSqlite(String key, long now) {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "select response_text, expires_at from mps_llm_response_cache where cache_key=? and expires_at>?",
+                    key,
+                    now
+            );
+            if (rows.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update("update mps_llm_response_cache set last_hit_at=CURRENT_TIMESTAMP where cache_key=?", key);
+            Map<String, Object> row = rows.get(0);
+            return new Entry(String.valueOf(row.get("response_text")), ((Number) row.get("expires_at")).longValue());
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private void putInSqlite(String key, String provider, String model, Entry entry) {
+        try {
+            // an update of an existing key counts as an insert here; the eviction recounts before deleting
+            int written = jdbcTemplate.update(
+                    "insert into mps_llm_response_cache(cache_key, provider, model, response_text, expires_at) values (?, ?, ?, ?, ?) "
+                            + "on conflict (cache_key) do update set response_text=excluded.response_text, expires_at=excluded.expires_at",
+                    key,
+                    provider,
+                    model,
+                    entry.response(),
+                    entry.expiresAt()
+            );
+            evictFromSqlite(written);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Keeps a running row count (seeded by one {@code count(*)}) and, once it passes {@code sqlite-max-entries},
+     * drops expired rows and then the least recently used ones down to 90% of the bound.
+     */
+    private void evictFromSqlite(int written) {
+        synchronized (sqliteLock) {
+            if (sqliteRows < 0L) {
+                sqliteRows = countSqliteRows();
+            } else {
+                sqliteRows += written;
+            }
+            long max = Math.max(1, sqliteMaxEntries);
+            if (sqliteRows <= max) {
+                return;
+            }
+            jdbcTemplate.update("delete from mps_llm_response_cache where expires_at<=?", System.currentTimeMillis());
+            long excess = countSqliteRows() - max * 9L / 10L;
+            if (excess > 0L) {
+                jdbcTemplate.update(
+                        "delete from mps_llm_response_cache where cache_key in (select cache_key from mps_llm_response_cache order by coalesce(last_hit_at, created_at) asc limit ?)",
+                        excess
+                );
+            }
+            sqliteRows = countSqliteRows();
+        }
+    }
+
+    private long countSqliteRows() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from mps_llm_response_cache", Long.class);
+        return count == null ? 0L : count;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(String response, long expiresAt) {
+    }
+}
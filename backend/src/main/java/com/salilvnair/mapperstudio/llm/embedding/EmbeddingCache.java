@@ -0,0 +1,321 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+import com.salilvnair.mapperstudio.task.service.cache.ContentHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Embedding vectors keyed by model + SHA-256 of the canonical input text, so a field text is embedded once per model
+ * instead of on every suggestion run. An LRU bounded by the bytes its vectors hold sits in front of the
+ * mps_embedding_cache table, which keeps each vector as little-endian float32. The table is trimmed in bulk to 90% of
+ * {@code sqlite-max-entries} only once it grows past that bound. Vectors are stored and returned unit-normalized (see
+ * {@link VectorMath}), and are shared between callers, so they must not be modified. With quantization enabled both
+ * tiers hold {@link QuantizedVector}s instead (about a quarter of the size) and hits are handed out as fresh
+ * dequantized copies; rows written in either format are read back by either mode.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Pattern ARRAY_INDEX = Pattern.compile("\\[(\\d+|\\*)?]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int SQLITE_LOOKUP_CHUNK = 500;
+    private static final long ENTRY_OVERHEAD_BYTES = 96L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkedHashMap<String, Object> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Object sqliteLock = new Object();
+    private long memoryBytes;
+    private long sqliteRows = -1L;
+
+    private final Counter memoryHits;
+    private final Counter sqliteHits;
+    private final Counter misses;
+
+    @Value("${mapper.llm.embedding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.llm.embedding.cache.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${mapper.llm.embedding.cache.sqlite-enabled:true}")
+    private boolean sqliteEnabled;
+
+    @Value("${mapper.llm.embedding.cache.sqlite-max-entries:500000}")
+    private int sqliteMaxEntries;
+
+    @Value("${mapper.llm.embedding.quantization.enabled:false}")
+    private boolean quantized;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memoryHits = meterRegistry.counter("mapper.llm.embedding.cache.requests", "result", "hit", "tier", "memory");
+        this.sqliteHits = meterRegistry.counter("mapper.llm.embedding.cache.requests", "result", "hit", "tier", "sqlite");
+        this.misses = meterRegistry.counter("mapper.llm.embedding.cache.requests", "result", "miss", "tier", "none");
+        Gauge.builder("mapper.llm.embedding.cache.entries", this, EmbeddingCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Drops array indices ({@code items[3].sku} and {@code items[*].sku} become {@code items.sku}) and collapses
+     * whitespace, so texts that differ only there share one vector.
+     */
+    public static String canonicalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = ARRAY_INDEX.matcher(text).replaceAll("");
+        return WHITESPACE.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    public float[] getOrEmbed(String model, String text, Function<String, float[]> embedder) {
+        return getOrEmbedAll(model, List.of(text == null ? "" : text), texts -> {
+            float[][] embedded = new float[texts.size()][];
+            for (int i = 0; i < texts.size(); i++) {
+                embedded[i] = embedder.apply(texts.get(i));
+            }
+            return embedded;
+        })[0];
+    }
+
+    /**
+     * Vectors for {@code texts}, in order. Only the distinct canonical texts missing from both tiers are passed to
+     * {@code embedder}, which must return one vector per text it is given.
+     */
+    public float[][] getOrEmbedAll(String model, List<String> texts, Function<List<String>, float[][]> embedder) {
+        float[][] out = new float[texts.size()][];
+        List<String> canonical = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            canonical.add(canonicalize(text));
+        }
+        if (!enabled) {
+            float[][] embedded = embedder.apply(canonical);
+            for (int i = 0; i < embedded.length; i++) {
+                out[i] = VectorMath.normalize(embedded[i]);
+            }
+            return out;
+        }
+
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < canonical.size(); i++) {
+            String hash = ContentHasher.sha256Hex(canonical.get(i));
+            Object cached = getFromMemory(model, hash);
+            if (cached != null) {
+                memoryHits.increment();
+                out[i] = expand(cached);
+            } else {
+                pending.computeIfAbsent(hash, h -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!pending.isEmpty() && sqliteEnabled) {
+            Map<String, Object> stored = getFromSqlite(model, new ArrayList<>(pending.keySet()));
+            for (Map.Entry<String, Object> hit : stored.entrySet()) {
+                sqliteHits.increment();
+                putInMemory(model, hit.getKey(), hit.getValue());
+                float[] vector = expand(hit.getValue());
+                for (int i : pending.remove(hit.getKey())) {
+                    out[i] = vector;
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return out;
+        }
+
+        List<String> hashes = new ArrayList<>(pending.keySet());
+        List<String> missing = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            missing.add(canonical.get(pending.get(hash).get(0)));
+        }
+        misses.increment(hashes.size());
+        float[][] embedded = embedder.apply(missing);
+
+        List<Object[]> inserts = new ArrayList<>(hashes.size());
+        for (int k = 0; k < hashes.size(); k++) {
+            float[] vector = VectorMath.normalize(embedded[k]);
+            for (int i : pending.get(hashes.get(k))) {
+                out[i] = vector;
+            }
+            if (vector.length == 0) {
+                continue;
+            }
+            Object entry = quantized ? QuantizedVector.of(vector) : vector;
+            putInMemory(model, hashes.get(k), entry);
+            inserts.add(new Object[]{model, hashes.get(k), vector.length, encode(entry)});
+        }
+        if (sqliteEnabled && !inserts.isEmpty()) {
+            putInSqlite(inserts);
+        }
+        return out;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        memoryBytes = 0L;
+    }
+
+    private synchronized Object getFromMemory(String model, String hash) {
+        return entries.get(model + ":" + hash);
+    }
+
+    private synchronized void putInMemory(String model, String hash, Object entry) {
+        Object previous = entries.put(model + ":" + hash, entry);
+        memoryBytes += bytes(entry) - (previous == null ? 0L : bytes(previous));
+        long maxBytes = Math.max(1L, maxMemoryMb) * 1024L * 1024L;
+        Iterator<Map.Entry<String, Object>> eldest = entries.entrySet().iterator();
+        while (memoryBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            memoryBytes -= bytes(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long bytes(Object entry) {
+        long payload = entry instanceof QuantizedVector q ? Float.BYTES + q.dim() : (long) ((float[]) entry).length * Float.BYTES;
+        return payload + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private Map<String, Object> getFromSqlite(String model, List<String> hashes) {
+        Map<String, Object> found = new HashMap<>();
+        try {
+            for (int from = 0; from < hashes.size(); from += SQLITE_LOOKUP_CHUNK) {
+                List<String> chunk = hashes.subList(from, Math.min(hashes.size(), from + SQLITE_LOOKUP_CHUNK));
+                String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                Object[] args = new Object[chunk.size() + 1];
+                args[0] = model;
+                for (int i = 0; i < chunk.size(); i++) {
+                    args[i + 1] = chunk.get(i);
+                }
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "select text_hash, dim, vector from mps_embedding_cache where model=? and text_hash in (" + in + ")",
+                        args
+                );
+                for (Map<String, Object> row : rows) {
+                    Object entry = decode((byte[]) row.get("vector"), ((Number) row.get("dim")).intValue());
+                    if (entry != null) {
+                        found.put(String.valueOf(row.get("text_hash")), entry);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.update(
+                            "update mps_embedding_cache set last_hit_at=CURRENT_TIMESTAMP where model=? and text_hash in (" + in + ")",
+                            args
+                    );
+                }
+            }
+        } catch (Exception ignored) {
+        }
+        return found;
+    }
+
+    private void putInSqlite(List<Object[]> inserts) {
+        try {
+            int[] counts = jdbcTemplate.batchUpdate(
+                    "insert into mps_embedding_cache(model, text_hash, dim, vector) values (?, ?, ?, ?) on conflict (model, text_hash) do nothing",
+                    inserts
+            );
+            int inserted = 0;
+            for (int count : counts) {
+                // drivers that report no count are taken as one row; the next eviction recounts anyway
+                inserted += count < 0 ? 1 : count;
+            }
+            evictFromSqlite(inserted);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Keeps a running row count (seeded by one {@code count(*)}) and, once it passes {@code sqlite-max-entries},
+     * deletes the least recently used rows down to 90% of the bound in a single statement.
+     */
+    private void evictFromSqlite(int inserted) {
+        synchronized (sqliteLock) {
+            if (sqliteRows < 0L) {
+                sqliteRows = countSqliteRows();
+            } else {
+                sqliteRows += inserted;
+            }
+            long max = Math.max(1, sqliteMaxEntries);
+            if (sqliteRows <= max) {
+                return;
+            }
+            long excess = countSqliteRows() - max * 9L / 10L;
+            if (excess > 0L) {
+                jdbcTemplate.update(
+                        "delete from mps_embedding_cache where (model, text_hash) in (select model, text_hash from mps_embedding_cache order by coalesce(last_hit_at, created_at) asc limit ?)",
+                        excess
+                );
+            }
+            sqliteRows = countSqliteRows();
+        }
+    }
+
+    private long countSqliteRows() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from mps_embedding_cache", Long.class);
+        return count == null ? 0L : count;
+    }
+
+    private float[] expand(Object entry) {
+        return entry instanceof QuantizedVector q ? q.toFloats() : (float[]) entry;
+    }
+
+    /**
+     * float32 rows are {@code dim * 4} bytes; quantized rows are the float32 scale followed by {@code dim} int8 values.
+     */
+    private static byte[] encode(Object entry) {
+        if (entry instanceof QuantizedVector q) {
+            ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES + q.dim()).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putFloat(q.scale()).put(q.values());
+            return buffer.array();
+        }
+        float[] vector = (float[]) entry;
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private Object decode(byte[] bytes, int dim) {
+        if (bytes == null || dim <= 0) {
+            return null;
+        }
+        float[] vector;
+        if (bytes.length == dim * Float.BYTES) {
+            vector = new float[dim];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        } else if (bytes.length == Float.BYTES + dim) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            float scale = buffer.getFloat();
+            byte[] values = new byte[dim];
+            buffer.get(values);
+            if (quantized) {
+                return scale > 0f ? new QuantizedVector(values, scale) : null;
+            }
+            vector = new QuantizedVector(values, scale).toFloats();
+        } else {
+            return null;
+        }
+        float[] unit = VectorMath.normalize(vector);
+        if (unit.length == 0) {
+            return null;
+        }
+        return quantized ? QuantizedVector.of(unit) : unit;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,62 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+/**
+ * A unit vector stored as int8 with one float scale ({@code value[d] ~= bytes[d] * scale}), a quarter of the float32
+ * size. With a per-vector scale the rounding error stays well below the gaps that matter for ranking, so quantized
+ * dot products are used to shortlist candidates and only the shortlist is re-scored in float. {@link #toFloats()}
+ * is only approximately unit length; normalize it before taking a cosine.
+ */
+public final class QuantizedVector {
+
+    private final byte[] values;
+    private final float scale;
+
+    public QuantizedVector(byte[] values, float scale) {
+        this.values = values;
+        this.scale = scale;
+    }
+
+    public static QuantizedVector of(float[] vector) {
+        byte[] values = new byte[vector.length];
+        return new QuantizedVector(values, quantizeInto(vector, values, 0));
+    }
+
+    /**
+     * Writes {@code vector} as int8 into {@code out} at {@code offset} and returns its scale (0 for an all-zero
+     * vector, which then scores 0 against everything).
+     */
+    public static float quantizeInto(float[] vector, byte[] out, int offset) {
+        float max = 0f;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        if (max == 0f || Float.isNaN(max)) {
+            return 0f;
+        }
+        float scale = max / 127f;
+        for (int d = 0; d < vector.length; d++) {
+            out[offset + d] = (byte) Math.round(vector[d] / scale);
+        }
+        return scale;
+    }
+
+    public byte[] values() {
+        return values;
+    }
+
+    public float scale() {
+        return scale;
+    }
+
+    public int dim() {
+        return values.length;
+    }
+
+    public float[] toFloats() {
+        float[] out = new float[values.length];
+        for (int d = 0; d < values.length; d++) {
+            out[d] = values[d] * scale;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,45 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+/**
+ * Plain Java kernel; four accumulators keep the loop from serializing on one float add.
+ */
+final class ScalarVectorKernel implements VectorKernel {
+
+    @Override
+    public float dot(float[] a, int offsetA, float[] b, int offsetB, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int d = 0;
+        for (; d + 3 < length; d += 4) {
+            s0 += a[offsetA + d] * b[offsetB + d];
+            s1 += a[offsetA + d + 1] * b[offsetB + d + 1];
+            s2 += a[offsetA + d + 2] * b[offsetB + d + 2];
+            s3 += a[offsetA + d + 3] * b[offsetB + d + 3];
+        }
+        for (; d < length; d++) {
+            s0 += a[offsetA + d] * b[offsetB + d];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public void dotMany(float[] query, float[] matrix, int offset, int rows, int dim, float[] out) {
+        for (int r = 0; r < rows; r++) {
+            out[r] = dot(query, 0, matrix, offset + r * dim, dim);
+        }
+    }
+
+    @Override
+    public void dotManyInt8(byte[] query, byte[] matrix, int offset, int rows, int dim, int[] out) {
+        for (int r = 0; r < rows; r++) {
+            int base = offset + r * dim;
+            int sum = 0;
+            for (int d = 0; d < dim; d++) {
+                sum += query[d] * matrix[base + d];
+            }
+            out[r] = sum;
+        }
+    }
+}
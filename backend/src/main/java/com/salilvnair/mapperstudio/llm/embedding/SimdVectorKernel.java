@@ -0,0 +1,97 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code jdk.incubator.vector} kernel using the platform's preferred float width with fused multiply-add.
+ * {@link #dotMany} handles four rows per pass so each query lane load is shared. Only loaded by {@link VectorMath}
+ * when the module is present.
+ */
+final class SimdVectorKernel implements VectorKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // one byte lane per int lane, so a load widens straight into INTS
+    private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    @Override
+    public float dot(float[] a, int offsetA, float[] b, int offsetB, int length) {
+        int upper = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int d = 0;
+        for (; d < upper; d += SPECIES.length()) {
+            acc = FloatVector.fromArray(SPECIES, a, offsetA + d).fma(FloatVector.fromArray(SPECIES, b, offsetB + d), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; d < length; d++) {
+            sum += a[offsetA + d] * b[offsetB + d];
+        }
+        return sum;
+    }
+
+    @Override
+    public void dotMany(float[] query, float[] matrix, int offset, int rows, int dim, float[] out) {
+        int upper = SPECIES.loopBound(dim);
+        int r = 0;
+        for (; r + 3 < rows; r += 4) {
+            int base0 = offset + r * dim;
+            int base1 = base0 + dim;
+            int base2 = base1 + dim;
+            int base3 = base2 + dim;
+            FloatVector acc0 = FloatVector.zero(SPECIES);
+            FloatVector acc1 = FloatVector.zero(SPECIES);
+            FloatVector acc2 = FloatVector.zero(SPECIES);
+            FloatVector acc3 = FloatVector.zero(SPECIES);
+            int d = 0;
+            for (; d < upper; d += SPECIES.length()) {
+                FloatVector q = FloatVector.fromArray(SPECIES, query, d);
+                acc0 = FloatVector.fromArray(SPECIES, matrix, base0 + d).fma(q, acc0);
+                acc1 = FloatVector.fromArray(SPECIES, matrix, base1 + d).fma(q, acc1);
+                acc2 = FloatVector.fromArray(SPECIES, matrix, base2 + d).fma(q, acc2);
+                acc3 = FloatVector.fromArray(SPECIES, matrix, base3 + d).fma(q, acc3);
+            }
+            float s0 = acc0.reduceLanes(VectorOperators.ADD);
+            float s1 = acc1.reduceLanes(VectorOperators.ADD);
+            float s2 = acc2.reduceLanes(VectorOperators.ADD);
+            float s3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; d < dim; d++) {
+                s0 += query[d] * matrix[base0 + d];
+                s1 += query[d] * matrix[base1 + d];
+                s2 += query[d] * matrix[base2 + d];
+                s3 += query[d] * matrix[base3 + d];
+            }
+            out[r] = s0;
+            out[r + 1] = s1;
+            out[r + 2] = s2;
+            out[r + 3] = s3;
+        }
+        for (; r < rows; r++) {
+            out[r] = dot(query, 0, matrix, offset + r * dim, dim);
+        }
+    }
+
+    @Override
+    public void dotManyInt8(byte[] query, byte[] matrix, int offset, int rows, int dim, int[] out) {
+        int upper = BYTES.loopBound(dim);
+        for (int r = 0; r < rows; r++) {
+            int base = offset + r * dim;
+            IntVector acc = IntVector.zero(INTS);
+            int d = 0;
+            for (; d < upper; d += BYTES.length()) {
+                IntVector q = (IntVector) ByteVector.fromArray(BYTES, query, d).convertShape(VectorOperators.B2I, INTS, 0);
+                IntVector m = (IntVector) ByteVector.fromArray(BYTES, matrix, base + d).convertShape(VectorOperators.B2I, INTS, 0);
+                acc = q.mul(m).add(acc);
+            }
+            int sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; d < dim; d++) {
+                sum += query[d] * matrix[base + d];
+            }
+            out[r] = sum;
+        }
+    }
+}
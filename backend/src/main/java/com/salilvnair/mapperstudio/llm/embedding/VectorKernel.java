@@ -0,0 +1,19 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+/**
+ * Dot-product kernels behind {@link VectorMath}; one scalar and one Vector API implementation.
+ */
+interface VectorKernel {
+
+    float dot(float[] a, int offsetA, float[] b, int offsetB, int length);
+
+    /**
+     * {@code out[r] = dot(query, matrix row r)} for {@code rows} rows of {@code dim} floats starting at {@code offset}.
+     */
+    void dotMany(float[] query, float[] matrix, int offset, int rows, int dim, float[] out);
+
+    /**
+     * Integer {@link #dotMany} over int8 rows; the caller applies the per-vector scales.
+     */
+    void dotManyInt8(byte[] query, byte[] matrix, int offset, int rows, int dim, int[] out);
+}
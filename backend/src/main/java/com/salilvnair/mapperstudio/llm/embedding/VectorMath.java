@@ -0,0 +1,94 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+/**
+ * Similarity math for embeddings. Vectors are unit-normalized once when stored ({@link #normalize}), so cosine is a
+ * single dot product. Uses the {@code jdk.incubator.vector} kernel when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} (unless {@code -Dmapper.vector.simd=false}), and a scalar kernel
+ * otherwise.
+ */
+public final class VectorMath {
+
+    private static final float[] EMPTY = new float[0];
+    private static final VectorKernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    public static boolean simd() {
+        return !(KERNEL instanceof ScalarVectorKernel);
+    }
+
+    /**
+     * Unit-length copy of {@code vector}, or an empty array when it is null, empty or all zeros.
+     */
+    public static float[] normalize(float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return EMPTY;
+        }
+        float[] out = new float[vector.length];
+        return normalizeInto(vector, out, 0) ? out : EMPTY;
+    }
+
+    /**
+     * Writes the unit-length {@code vector} into {@code out} at {@code offset}; returns false (and writes nothing)
+     * for a zero vector.
+     */
+    public static boolean normalizeInto(float[] vector, float[] out, int offset) {
+        double norm = 0d;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        if (norm == 0d || Double.isNaN(norm)) {
+            return false;
+        }
+        float inv = (float) (1d / Math.sqrt(norm));
+        for (int d = 0; d < vector.length; d++) {
+            out[offset + d] = vector[d] * inv;
+        }
+        return true;
+    }
+
+    /**
+     * Cosine of two unit vectors; 0 when either is empty or the lengths differ.
+     */
+    public static float dot(float[] a, float[] b) {
+        if (a == null || b == null || a.length == 0 || a.length != b.length) {
+            return 0f;
+        }
+        return KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    public static float dot(float[] a, int offsetA, float[] b, int offsetB, int length) {
+        return KERNEL.dot(a, offsetA, b, offsetB, length);
+    }
+
+    /**
+     * Scores one query against {@code rows} contiguous rows of {@code dim} floats in {@code matrix} starting at
+     * {@code offset}: {@code out[r] = dot(query, row r)}.
+     */
+    public static void dotMany(float[] query, float[] matrix, int offset, int rows, int dim, float[] out) {
+        KERNEL.dotMany(query, matrix, offset, rows, dim, out);
+    }
+
+    /**
+     * Integer dot products of an int8 query against {@code rows} contiguous int8 rows (see {@link QuantizedVector});
+     * multiply by both scales to get the approximate cosine.
+     */
+    public static void dotManyInt8(byte[] query, byte[] matrix, int offset, int rows, int dim, int[] out) {
+        KERNEL.dotManyInt8(query, matrix, offset, rows, dim, out);
+    }
+
+    private static VectorKernel loadKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("mapper.vector.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarVectorKernel();
+        }
+        try {
+            return (VectorKernel) Class.forName("com.salilvnair.mapperstudio.llm.embedding.SimdVectorKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (Throwable ignored) {
+            return new ScalarVectorKernel();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+import java.util.function.Consumer;
+
+/**
+ * Consecutive-failure breaker for one provider. After {@code failureThreshold} failed calls in a row it opens and
+ * rejects calls for {@code openMillis}; then a single trial call is let through (half-open) and its outcome closes or
+ * re-opens the circuit.
+ */
+final class LlmCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Consumer<State> onTransition;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    LlmCircuitBreaker(int failureThreshold, long openMillis, Consumer<State> onTransition) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(1L, openMillis) * 1_000_000L;
+        this.onTransition = onTransition;
+    }
+
+    /**
+     * 0 when the call may proceed, otherwise the milliseconds until the breaker lets a trial call through.
+     */
+    synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            long waited = System.nanoTime() - openedAt;
+            if (waited < openNanos) {
+                return Math.max(1L, (openNanos - waited) / 1_000_000L);
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return Math.max(1L, openNanos / 1_000_000L);
+            }
+            trialInFlight = true;
+        }
+        return 0L;
+    }
+
+    synchronized void onSuccess() {
+        failures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            openedAt = System.nanoTime();
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * The call ended without telling anything about the provider (interrupted or cancelled).
+     */
+    synchronized void onAbandon() {
+        trialInFlight = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void transition(State next) {
+        state = next;
+        onTransition.accept(next);
+    }
+}
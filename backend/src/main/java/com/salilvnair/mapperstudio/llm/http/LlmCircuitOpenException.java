@@ -0,0 +1,18 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+/**
+ * Thrown without calling the provider while its circuit breaker is open; {@code retryAfter} is the number of seconds
+ * until the next trial call is let through.
+ */
+public class LlmCircuitOpenException extends LlmHttpException {
+
+    public LlmCircuitOpenException(String provider, long retryAfterSeconds) {
+        super(
+                provider,
+                0,
+                Long.toString(retryAfterSeconds),
+                provider + " is unavailable after repeated failures; next attempt in " + retryAfterSeconds + "s",
+                null
+        );
+    }
+}
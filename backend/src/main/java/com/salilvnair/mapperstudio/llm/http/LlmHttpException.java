@@ -0,0 +1,22 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+import lombok.Getter;
+
+/**
+ * A failed LLM HTTP call: a non-2xx answer ({@code status} and the {@code Retry-After} header, if any), or an I/O
+ * failure or timeout ({@code status} 0).
+ */
+@Getter
+public class LlmHttpException extends RuntimeException {
+
+    private final String provider;
+    private final int status;
+    private final String retryAfter;
+
+    public LlmHttpException(String provider, int status, String retryAfter, String message, Throwable cause) {
+        super(message, cause);
+        this.provider = provider;
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+}
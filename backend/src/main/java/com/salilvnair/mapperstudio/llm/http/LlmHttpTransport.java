@@ -0,0 +1,332 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One long-lived JDK {@link HttpClient} per LLM provider, shared by its chat and embedding delegates, so connections
+ * (and TLS sessions) are reused instead of paying a handshake per call. HTTP/2 multiplexes concurrent calls over one
+ * connection where the server supports it; HTTP/1.1 connections are kept alive in the client's pool for
+ * {@code -Djdk.httpclient.keepalive.timeout} seconds (JDK default 30). Request timeouts are set per operation,
+ * responses may come back gzip-compressed, and every call goes through {@link LlmResilience} for rate-limit
+ * admission, retries, circuit breaking and hedging.
+ */
+@Component
+public class LlmHttpTransport {
+
+    public static final String OPENAI = "openai";
+    public static final String LMSTUDIO = "lmstudio";
+
+    private static final int ERROR_BODY_CHARS = 2000;
+
+    private final ObjectMapper mapper;
+    private final LlmResilience resilience;
+    private final boolean gzip;
+    private final Provider openAi;
+    private final Provider lmStudio;
+
+    public LlmHttpTransport(
+            ObjectMapper objectMapper,
+            LlmResilience resilience,
+            @Value("${mapper.llm.http.gzip:true}") boolean gzip,
+            @Value("${mapper.llm.http.openai.http2:true}") boolean openAiHttp2,
+            @Value("${mapper.llm.http.openai.connect-timeout-ms:5000}") long openAiConnectTimeout,
+            @Value("${mapper.llm.http.openai.chat-timeout-ms:120000}") long openAiChatTimeout,
+            @Value("${mapper.llm.http.openai.embedding-timeout-ms:30000}") long openAiEmbeddingTimeout,
+            @Value("${mapper.llm.http.lmstudio.http2:false}") boolean lmStudioHttp2,
+            @Value("${mapper.llm.http.lmstudio.connect-timeout-ms:2000}") long lmStudioConnectTimeout,
+            @Value("${mapper.llm.http.lmstudio.chat-timeout-ms:300000}") long lmStudioChatTimeout,
+            @Value("${mapper.llm.http.lmstudio.embedding-timeout-ms:60000}") long lmStudioEmbeddingTimeout
+    ) {
+        this.mapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.resilience = resilience;
+        this.gzip = gzip;
+        this.openAi = new Provider(OPENAI, openAiHttp2, openAiConnectTimeout, openAiChatTimeout, openAiEmbeddingTimeout);
+        this.lmStudio = new Provider(LMSTUDIO, lmStudioHttp2, lmStudioConnectTimeout, lmStudioChatTimeout, lmStudioEmbeddingTimeout);
+    }
+
+    /**
+     * POSTs {@code body} as JSON and reads the answer as {@code responseType}; {@code bearerToken} may be null.
+     *
+     * @throws LlmHttpException on a non-2xx status, an I/O failure or a timeout that retries did not overcome
+     */
+    public <T> T postJson(String provider, LlmOperation operation, String url, String bearerToken, Object body, Class<T> responseType) {
+        Provider target = provider(provider);
+        byte[] payload = payload(target, url, body);
+        HttpRequest httpRequest = request(target, operation, url, bearerToken, payload, "application/json", gzip);
+
+        byte[] answer = resilience.call(target.name, operation, payload.length, () -> cancellable(
+                target.client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray()),
+                (response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        throw new LlmHttpException(target.name, 0, null, target.name + " call to " + url + " failed: " + cause, cause);
+                    }
+                    return checked(target.name, url, response);
+                }
+        ));
+        try {
+            return mapper.readValue(answer, responseType);
+        } catch (IOException e) {
+            throw new LlmHttpException(target.name, 0, null, target.name + " answer from " + url + " could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * POSTs {@code body} (which asks for {@code stream: true}) and reads the server-sent events of a chat completion
+     * or Responses API stream, passing each text delta to {@code onDelta} as it arrives; returns the whole text.
+     * Retries only cover failures before the stream starts; a stream that breaks off or outlasts the operation's
+     * timeout fails the call. The in-flight slot is held until the stream has been read.
+     *
+     * @throws LlmHttpException on a non-2xx status, an I/O failure, a timeout or an error event
+     */
+    public String streamText(String provider, LlmOperation operation, String url, String bearerToken, Object body, Consumer<String> onDelta) {
+        Provider target = provider(provider);
+        // no gzip: a compressing proxy may buffer the events
+        byte[] payload = payload(target, url, body);
+        HttpRequest httpRequest = request(target, operation, url, bearerToken, payload, "text/event-stream", false);
+
+        // the in-flight slot stays taken until the body has been read
+        return resilience.call(target.name, operation, payload.length, () -> cancellable(
+                target.client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream()),
+                (answer, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        throw new LlmHttpException(target.name, 0, null, target.name + " call to " + url + " failed: " + cause, cause);
+                    }
+                    if (answer.statusCode() / 100 != 2) {
+                        String text;
+                        try (InputStream in = answer.body()) {
+                            text = new String(in.readNBytes(ERROR_BODY_CHARS), StandardCharsets.UTF_8);
+                        } catch (IOException e) {
+                            text = "";
+                        }
+                        throw new LlmHttpException(
+                                target.name,
+                                answer.statusCode(),
+                                answer.headers().firstValue("Retry-After").orElse(null),
+                                target.name + " HTTP " + answer.statusCode() + " from " + url + ": " + text,
+                                null
+                        );
+                    }
+                    return answer;
+                }
+        ), response -> readEvents(target, operation, url, response, onDelta));
+    }
+
+    /**
+     * Reads the server-sent events of {@code response}. {@link HttpRequest#timeout} only covers the headers, so the
+     * body gets the same per-operation timeout of its own: a stream still open after it is closed and fails the call.
+     */
+    private String readEvents(Provider target, LlmOperation operation, String url, HttpResponse<InputStream> response, Consumer<String> onDelta) {
+        InputStream body = response.body();
+        Duration timeout = target.timeout(operation);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        CompletableFuture<Void> read = new CompletableFuture<>();
+        read.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((ignored, error) -> {
+            if (error instanceof TimeoutException) {
+                timedOut.set(true);
+                discard(response);
+            }
+        });
+
+        StringBuilder text = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            StringBuilder data = new StringBuilder();
+            boolean open = true;
+            String line;
+            while (open && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    open = data.isEmpty() || onEvent(target.name, data.toString(), text, onDelta);
+                    data.setLength(0);
+                } else if (line.startsWith("data:")) {
+                    if (!data.isEmpty()) {
+                        data.append('\n');
+                    }
+                    data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+                }
+            }
+            if (timedOut.get()) {
+                throw new IOException("no complete answer within " + timeout.toMillis() + " ms");
+            }
+            if (open && !data.isEmpty()) {
+                onEvent(target.name, data.toString(), text, onDelta);
+            }
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new LlmHttpException(target.name, 0, null, target.name + " stream from " + url + " interrupted", e);
+            }
+            if (timedOut.get()) {
+                throw new LlmHttpException(target.name, 0, null, target.name + " stream from " + url + " timed out after " + timeout.toMillis() + " ms", e);
+            }
+            throw new LlmHttpException(target.name, 0, null, target.name + " stream from " + url + " broke off: " + e.getMessage(), e);
+        } finally {
+            read.complete(null);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Handles one event; false once the stream is complete. Chat completions carry {@code choices[0].delta.content}
+     * and end with {@code [DONE]}; the Responses API sends typed events ending with {@code response.completed}.
+     */
+    private boolean onEvent(String provider, String data, StringBuilder text, Consumer<String> onDelta) throws IOException {
+        if ("[DONE]".equals(data)) {
+            return false;
+        }
+        JsonNode event = mapper.readTree(data);
+        String type = event.path("type").asText("");
+        if ("error".equals(type) || "response.failed".equals(type) || event.hasNonNull("error")) {
+            JsonNode error = event.hasNonNull("error") ? event.get("error") : event.path("response").path("error");
+            throw new LlmHttpException(provider, 0, null, provider + " stream failed: " + (error.isMissingNode() ? event : error), null);
+        }
+        if ("response.completed".equals(type) || "response.incomplete".equals(type)) {
+            return false;
+        }
+
+        JsonNode delta = "response.output_text.delta".equals(type)
+                ? event.path("delta")
+                : event.path("choices").path(0).path("delta").path("content");
+        if (delta.isTextual() && !delta.asText().isEmpty()) {
+            text.append(delta.asText());
+            if (onDelta != null) {
+                onDelta.accept(delta.asText());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies {@code handler} to the exchange and forwards cancellation of the returned stage to the exchange itself.
+     * Cancelling a dependent stage never reaches {@code sendAsync}, so without this an interrupted, timed-out or
+     * losing hedged attempt would keep its request open until the request timeout.
+     */
+    private static <B, T> CompletableFuture<T> cancellable(
+            CompletableFuture<HttpResponse<B>> exchange,
+            BiFunction<HttpResponse<B>, Throwable, T> handler
+    ) {
+        CompletableFuture<T> attempt = exchange.handle(handler);
+        attempt.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                exchange.cancel(true);
+                // headers may already be in: a streamed body still holds the connection
+                exchange.thenAccept(LlmHttpTransport::discard);
+            }
+        });
+        return attempt;
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream in) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Provider provider(String provider) {
+        return LMSTUDIO.equals(provider) ? lmStudio : openAi;
+    }
+
+    private byte[] payload(Provider target, String url, Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new LlmHttpException(target.name, 0, null, target.name + " request to " + url + " could not be written: " + e.getMessage(), e);
+        }
+    }
+
+    private HttpRequest request(Provider target, LlmOperation operation, String url, String bearerToken, byte[] payload, String accept, boolean compressed) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(target.timeout(operation))
+                .header("Content-Type", "application/json")
+                .header("Accept", accept);
+        if (compressed) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        if (bearerToken != null && !bearerToken.isBlank()) {
+            request.header("Authorization", "Bearer " + bearerToken);
+        }
+        return request.POST(HttpRequest.BodyPublishers.ofByteArray(payload)).build();
+    }
+
+    /**
+     * The decoded body of a 2xx response.
+     */
+    private static byte[] checked(String provider, String url, HttpResponse<byte[]> response) {
+        byte[] body;
+        try {
+            body = decoded(response);
+        } catch (IOException e) {
+            throw new LlmHttpException(provider, 0, null, provider + " answer from " + url + " could not be decoded: " + e.getMessage(), e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            String error = new String(body, 0, Math.min(body.length, ERROR_BODY_CHARS), StandardCharsets.UTF_8);
+            throw new LlmHttpException(
+                    provider,
+                    response.statusCode(),
+                    response.headers().firstValue("Retry-After").orElse(null),
+                    provider + " HTTP " + response.statusCode() + " from " + url + ": " + error,
+                    null
+            );
+        }
+        return body;
+    }
+
+    private static byte[] decoded(HttpResponse<byte[]> response) throws IOException {
+        boolean gzipped = response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+        if (!gzipped) {
+            return response.body();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static final class Provider {
+        private final String name;
+        private final HttpClient client;
+        private final Duration chatTimeout;
+        private final Duration embeddingTimeout;
+
+        private Provider(String name, boolean http2, long connectTimeoutMillis, long chatTimeoutMillis, long embeddingTimeoutMillis) {
+            this.name = name;
+            this.client = HttpClient.newBuilder()
+                    .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofMillis(Math.max(1L, connectTimeoutMillis)))
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            this.chatTimeout = Duration.ofMillis(Math.max(1L, chatTimeoutMillis));
+            this.embeddingTimeout = Duration.ofMillis(Math.max(1L, embeddingTimeoutMillis));
+        }
+
+        private Duration timeout(LlmOperation operation) {
+            return operation == LlmOperation.EMBEDDING ? embeddingTimeout : chatTimeout;
+        }
+    }
+}
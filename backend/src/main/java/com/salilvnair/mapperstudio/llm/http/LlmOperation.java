@@ -0,0 +1,9 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+/**
+ * Kind of LLM request, used to pick the request timeout.
+ */
+public enum LlmOperation {
+    CHAT,
+    EMBEDDING
+}
@@ -0,0 +1,333 @@
+package com.salilvnair.mapperstudio.llm.http;
+
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmRateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Retry, circuit breaking and hedging around single LLM HTTP attempts. Rate limits (429), server errors (5xx) and
+ * I/O failures are retried with full-jitter exponential backoff, waiting at least as long as a {@code Retry-After}
+ * header asks; a per-provider breaker fails calls fast after repeated failures. Embedding calls may send one duplicate
+ * request once the first has been running longer than the provider's recent p95 embedding latency, keeping whichever
+ * answers first. Every attempt, retries and hedges included, is admitted by the {@link LlmRateLimiter} first.
+ */
+@Component
+public class LlmResilience {
+
+    private final MeterRegistry meterRegistry;
+    private final LlmRateLimiter rateLimiter;
+    private final Map<String, LlmCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> embeddingLatencies = new ConcurrentHashMap<>();
+
+    @Value("${mapper.llm.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.llm.resilience.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${mapper.llm.resilience.base-delay-ms:500}")
+    private long baseDelayMillis;
+
+    @Value("${mapper.llm.resilience.max-delay-ms:20000}")
+    private long maxDelayMillis;
+
+    @Value("${mapper.llm.resilience.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${mapper.llm.resilience.breaker.open-ms:30000}")
+    private long breakerOpenMillis;
+
+    @Value("${mapper.llm.resilience.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${mapper.llm.resilience.hedge.min-delay-ms:250}")
+    private long hedgeMinDelayMillis;
+
+    @Value("${mapper.llm.resilience.hedge.min-samples:20}")
+    private int hedgeMinSamples;
+
+    public LlmResilience(MeterRegistry meterRegistry, LlmRateLimiter rateLimiter) {
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Runs {@code attempt} (one HTTP exchange of a {@code requestChars}-character body, failing with
+     * {@link LlmHttpException}) until it succeeds, fails with a non-retryable status, runs out of attempts or the
+     * provider's breaker opens.
+     *
+     * @throws LlmCircuitOpenException while the provider's breaker is open
+     * @throws com.salilvnair.mapperstudio.llm.ratelimit.LlmDeferredException when an attempt is not admitted in time
+     */
+    public <T> T call(String provider, LlmOperation operation, long requestChars, Supplier<CompletableFuture<T>> attempt) {
+        return call(provider, operation, requestChars, attempt, Function.identity());
+    }
+
+    /**
+     * Like {@link #call(String, LlmOperation, long, Supplier)}, then hands the successful answer to {@code consume}
+     * on the calling thread while the attempt's in-flight slot is still held, so reading a streamed body counts
+     * against {@code max-concurrency}. A failure inside {@code consume} is not retried and does not touch the breaker.
+     */
+    public <T, R> R call(String provider, LlmOperation operation, long requestChars, Supplier<CompletableFuture<T>> attempt, Function<T, R> consume) {
+        if (!enabled) {
+            try (LlmRateLimiter.Admission ignored = rateLimiter.admit(provider, operation, requestChars)) {
+                return consume.apply(await(provider, attempt.get()));
+            }
+        }
+        LlmCircuitBreaker breaker = breaker(provider);
+        for (int attemptNo = 1; ; attemptNo++) {
+            long openFor = breaker.tryAcquire();
+            if (openFor > 0) {
+                meterRegistry.counter("mapper.llm.http.breaker.rejections", "provider", provider).increment();
+                throw new LlmCircuitOpenException(provider, (openFor + 999) / 1000);
+            }
+
+            LlmRateLimiter.Admission admission;
+            try {
+                admission = rateLimiter.admit(provider, operation, requestChars);
+            } catch (RuntimeException e) {
+                breaker.onAbandon();
+                throw e;
+            }
+
+            long started = System.nanoTime();
+            boolean answered = false;
+            try {
+                T result = await(provider, operation == LlmOperation.EMBEDDING && hedgeEnabled
+                        ? hedged(provider, requestChars, attempt)
+                        : attempt.get());
+                breaker.onSuccess();
+                if (operation == LlmOperation.EMBEDDING) {
+                    latencies(provider).record(System.nanoTime() - started);
+                }
+                answered = true;
+                return consume.apply(result);
+            } catch (LlmHttpException e) {
+                if (answered) {
+                    throw e;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    breaker.onAbandon();
+                    throw e;
+                }
+                if (!retryable(e.getStatus())) {
+                    // the provider answered; a bad request says nothing about its health
+                    breaker.onSuccess();
+                    throw e;
+                }
+                breaker.onFailure();
+                long delay = attemptNo < maxAttempts ? backoff(attemptNo, e.getRetryAfter()) : -1L;
+                if (delay < 0) {
+                    throw e;
+                }
+                meterRegistry.counter(
+                        "mapper.llm.http.retries",
+                        "provider", provider,
+                        "operation", operation.name().toLowerCase(),
+                        "reason", e.getStatus() == 0 ? "io" : Integer.toString(e.getStatus())
+                ).increment();
+                // the in-flight slot is not held while backing off
+                admission.close();
+                sleep(provider, delay, e);
+            } finally {
+                admission.close();
+            }
+        }
+    }
+
+    static boolean retryable(int status) {
+        return status == 0 || status == 408 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Full jitter over {@code base * 2^(attempt-1)} capped at {@code max-delay-ms}, but never shorter than
+     * {@code Retry-After}; -1 when the server asks for a longer wait than {@code max-delay-ms}.
+     */
+    long backoff(int attemptNo, String retryAfter) {
+        long cap = Math.min(Math.max(1L, maxDelayMillis), Math.max(1L, baseDelayMillis) << Math.min(20, attemptNo - 1));
+        long jitter = ThreadLocalRandom.current().nextLong(cap + 1);
+        long asked = retryAfterMillis(retryAfter);
+        if (asked > maxDelayMillis) {
+            return -1L;
+        }
+        return Math.max(asked, jitter);
+    }
+
+    /**
+     * Retry-After as delta-seconds or an HTTP date; 0 when absent or unreadable.
+     */
+    public static long retryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0L;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0L, (long) (Double.parseDouble(value) * 1000d));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0L, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (Exception ignored) {
+            return 0L;
+        }
+    }
+
+    private <T> CompletableFuture<T> hedged(String provider, long requestChars, Supplier<CompletableFuture<T>> attempt) {
+        CompletableFuture<T> primary = attempt.get();
+        long p95 = latencies(provider).p95Nanos(hedgeMinSamples);
+        if (p95 < 0) {
+            return primary;
+        }
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        CompletableFuture<?>[] hedge = new CompletableFuture<?>[1];
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger launched = new AtomicInteger(1);
+        BiConsumer<T, Throwable> settle = (value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            } else if (failures.incrementAndGet() == launched.get()) {
+                winner.completeExceptionally(error);
+            }
+        };
+        primary.whenComplete(settle);
+
+        long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMillis), p95);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            if (winner.isDone() || primary.isDone()) {
+                return;
+            }
+            // a duplicate is optional: send it only if the budget and an in-flight slot are free right now
+            LlmRateLimiter.Admission admission = rateLimiter.tryAdmit(provider, LlmOperation.EMBEDDING, requestChars);
+            if (admission == null) {
+                meterRegistry.counter("mapper.llm.http.hedges", "provider", provider, "result", "skipped").increment();
+                return;
+            }
+            launched.incrementAndGet();
+            meterRegistry.counter("mapper.llm.http.hedges", "provider", provider, "result", "sent").increment();
+            CompletableFuture<T> second = attempt.get();
+            hedge[0] = second;
+            second.whenComplete((value, error) -> {
+                admission.close();
+                if (error == null && !winner.isDone()) {
+                    meterRegistry.counter("mapper.llm.http.hedges", "provider", provider, "result", "won").increment();
+                }
+                settle.accept(value, error);
+            });
+            if (winner.isDone()) {
+                second.cancel(true);
+            }
+        });
+
+        winner.whenComplete((value, error) -> {
+            primary.cancel(true);
+            if (hedge[0] != null) {
+                hedge[0].cancel(true);
+            }
+        });
+        return winner;
+    }
+
+    private static <T> T await(String provider, CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LlmHttpException(provider, 0, null, provider + " call interrupted", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof LlmHttpException http) {
+                throw http;
+            }
+            throw new LlmHttpException(provider, 0, null, provider + " call failed: " + cause, cause);
+        } catch (CancellationException e) {
+            throw new LlmHttpException(provider, 0, null, provider + " call cancelled", e);
+        }
+    }
+
+    private static void sleep(String provider, long millis, LlmHttpException cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmHttpException(provider, 0, null, provider + " retry interrupted after: " + cause.getMessage(), cause);
+        }
+    }
+
+    private LlmCircuitBreaker breaker(String provider) {
+        return breakers.computeIfAbsent(provider, name -> {
+            LlmCircuitBreaker breaker = new LlmCircuitBreaker(
+                    breakerFailureThreshold,
+                    breakerOpenMillis,
+                    state -> meterRegistry.counter(
+                            "mapper.llm.http.breaker.transitions",
+                            "provider", name,
+                            "state", state.name().toLowerCase()
+                    ).increment()
+            );
+            Gauge.builder("mapper.llm.http.breaker.state", breaker, b -> b.state().ordinal())
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private LatencyWindow latencies(String provider) {
+        return embeddingLatencies.computeIfAbsent(provider, name -> new LatencyWindow(128));
+    }
+
+    /**
+     * Last {@code size} successful call latencies.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        private LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(samples.length, count + 1);
+        }
+
+        /**
+         * -1 until {@code minSamples} latencies were recorded.
+         */
+        private synchronized long p95Nanos(int minSamples) {
+            if (count < Math.max(1, minSamples)) {
+                return -1L;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.95d) - 1)];
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.salilvnair.mapperstudio.llm.provider;
+
+import java.util.List;
+
+/**
+ * Embedding endpoints that accept an array {@code input}. Implementations split {@code inputs} into chunks of
+ * {@code mapper.llm.embedding.batch-size} and return one vector per input, in input order.
+ */
+public interface BatchEmbeddingClient {
+
+    float[][] generateEmbeddings(List<String> inputs);
+}
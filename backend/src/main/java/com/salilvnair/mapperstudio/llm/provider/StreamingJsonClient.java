@@ -0,0 +1,14 @@
+package com.salilvnair.mapperstudio.llm.provider;
+
+import java.util.function.Consumer;
+
+/**
+ * Strict JSON completions that can be consumed while they are generated. {@code onElement} receives every object of
+ * the answer's top-level {@code arrayField} as JSON text once its closing brace has arrived; the return value is the
+ * complete answer, exactly as {@code generateJsonStrict} would return it. With {@code mapper.llm.streaming.enabled}
+ * off, or on a response cache hit, the elements are all delivered once the answer is complete.
+ */
+public interface StreamingJsonClient {
+
+    String generateJsonStrictStreaming(String hint, String jsonSchema, String context, String arrayField, Consumer<String> onElement);
+}
@@ -1,12 +1,18 @@
 package com.salilvnair.mapperstudio.llm.provider.lmstudio;
 
 import com.github.salilvnair.api.processor.rest.facade.RestWebServiceFacade;
+import com.salilvnair.mapperstudio.llm.cache.LlmResponseCache;
+import com.salilvnair.mapperstudio.llm.embedding.EmbeddingCache;
+import com.salilvnair.mapperstudio.llm.provider.BatchEmbeddingClient;
+import com.salilvnair.mapperstudio.llm.provider.StreamingJsonClient;
 import com.salilvnair.mapperstudio.llm.provider.lmstudio.context.LmStudioApiContext;
 import com.salilvnair.mapperstudio.llm.provider.lmstudio.context.LmStudioEmbeddingApiContext;
 import com.salilvnair.mapperstudio.llm.provider.lmstudio.handler.LmStudioEmbeddingRestWebserviceHandler;
 import com.salilvnair.mapperstudio.llm.provider.lmstudio.handler.LmStudioRestWebserviceHandler;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiRequest;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiResponse;
+import com.salilvnair.mapperstudio.llm.stream.IncrementalJsonArrayParser;
+import com.salilvnair.mapperstudio.llm.stream.ThinkBlockFilter;
 import com.github.salilvnair.convengine.entity.CeLlmCallLog;
 import com.github.salilvnair.convengine.llm.base.type.OutputType;
 import com.github.salilvnair.convengine.llm.context.LlmInvocationContext;
@@ -20,6 +26,7 @@ import org.springframework.stereotype.Component;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -28,16 +35,26 @@ import java.util.stream.Collectors;
         name = "convengine.llm.provider",
         havingValue = "lmstudio"
 )
-public class LmStudioLlmClient implements LlmClient {
+public class LmStudioLlmClient implements LlmClient, BatchEmbeddingClient, StreamingJsonClient {
+
+    private static final String EMBEDDING_MODEL = "text-embedding-multilingual-e5-large-instruct";
 
     private final LlmCallLogRepository logRepo;
     private final RestWebServiceFacade restWebServiceFacade;
     private final LmStudioRestWebserviceHandler handler;
     private final LmStudioEmbeddingRestWebserviceHandler embeddingHandler;
+    private final EmbeddingCache embeddingCache;
+    private final LlmResponseCache responseCache;
 
     @Value("${convengine.llm.lmstudio.model}")
     private String model;
 
+    @Value("${mapper.llm.embedding.batch-size:256}")
+    private int embeddingBatchSize;
+
+    @Value("${mapper.llm.streaming.enabled:true}")
+    private boolean streaming;
+
     @Override
     public String generateText(String hint, String context) {
         return call(
@@ -73,15 +90,51 @@ public class LmStudioLlmClient implements LlmClient {
                         .userContext(context)
                         .type(OutputType.JSON)
                         .strictJson(true)
+                        .temperature(0.0)
+                        .build()
+        );
+    }
+
+    @Override
+    public String generateJsonStrictStreaming(String hint, String jsonSchema, String context, String arrayField, Consumer<String> onElement) {
+        IncrementalJsonArrayParser parser = new IncrementalJsonArrayParser(arrayField, onElement);
+        // reasoning models think out loud first; keep that away from the parser
+        ThinkBlockFilter filter = new ThinkBlockFilter(parser::feed);
+        String content = call(
+                LmStudioApiContext.builder()
+                        .model(model)
+                        .hint(hint)
+                        .jsonSchema(jsonSchema)
+                        .userContext(context)
+                        .type(OutputType.JSON)
+                        .strictJson(true)
+                        .temperature(0.0)
+                        .stream(streaming)
+                        .streamListener(filter)
                         .build()
         );
+        filter.finish();
+        if (parser.received() == 0) {
+            // not streamed (disabled or cache hit)
+            parser.feed(content);
+        }
+        return content;
     }
 
     @Override
     public float[] generateEmbedding(String input) {
+        return embeddingCache.getOrEmbed(EMBEDDING_MODEL, input, this::requestEmbedding);
+    }
+
+    @Override
+    public float[][] generateEmbeddings(List<String> inputs) {
+        return embeddingCache.getOrEmbedAll(EMBEDDING_MODEL, inputs, this::requestEmbeddings);
+    }
+
+    private float[] requestEmbedding(String input) {
         LmStudioEmbeddingApiContext ctx = LmStudioEmbeddingApiContext
                                             .builder()
-                                            .model("text-embedding-multilingual-e5-large-instruct")
+                                            .model(EMBEDDING_MODEL)
                                             .input(input)
                                             .build();
 
@@ -90,6 +143,23 @@ public class LmStudioLlmClient implements LlmClient {
         return ctx.getEmbedding();
     }
 
+    private float[][] requestEmbeddings(List<String> inputs) {
+        float[][] embeddings = new float[inputs.size()][];
+        int chunk = Math.max(1, embeddingBatchSize);
+        for (int from = 0; from < inputs.size(); from += chunk) {
+            List<String> batch = inputs.subList(from, Math.min(inputs.size(), from + chunk));
+            LmStudioEmbeddingApiContext ctx = LmStudioEmbeddingApiContext.builder()
+                    .model(EMBEDDING_MODEL)
+                    .inputs(batch)
+                    .build();
+
+            restWebServiceFacade.initiate(embeddingHandler, new HashMap<>(), ctx);
+
+            System.arraycopy(ctx.getEmbeddings(), 0, embeddings, from, batch.size());
+        }
+        return embeddings;
+    }
+
     private String call(LmStudioApiContext apiContext) {
         LlmInvocationContext ctx = LlmInvocationContext.get();
 
@@ -104,7 +174,21 @@ public class LmStudioLlmClient implements LlmClient {
                 .success(false)
                 .build();
 
-
+        String cacheKey = responseCache.cacheable(apiContext.getTemperature())
+                ? LlmResponseCache.key("lmstudio", apiContext.getModel(), apiContext.getTemperature(), apiContext.getType(), apiContext.isStrictJson(), apiContext.getHint(), apiContext.getJsonSchema(), apiContext.getUserContext())
+                : null;
+        String cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+        if (cached != null) {
+            // builds the messages the call would have sent, so the log row shows the real prompt
+            handler.prepareRequest(new HashMap<>(), apiContext);
+            String prompt = flattenPrompt(apiContext.getMessages());
+            log.setPromptText(prompt == null ? "" : prompt);
+            log.setProvider("lmstudio" + LlmResponseCache.HIT_PROVIDER_SUFFIX);
+            log.setResponseText(cached);
+            log.setSuccess(true);
+            logRepo.save(log);
+            return cached;
+        }
 
         try {
             restWebServiceFacade.initiate(handler, new HashMap<>(), apiContext);
@@ -117,6 +201,9 @@ public class LmStudioLlmClient implements LlmClient {
             content = content.replace("\n```", "").trim();
             log.setResponseText(content);
             log.setSuccess(true);
+            if (cacheKey != null) {
+                responseCache.put(cacheKey, "lmstudio", apiContext.getModel(), content, OutputType.JSON.equals(apiContext.getType()));
+            }
             return content;
         } catch (Exception e) {
             log.setErrorMessage(e.getMessage());
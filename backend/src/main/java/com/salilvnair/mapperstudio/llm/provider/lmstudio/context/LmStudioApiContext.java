@@ -7,16 +7,23 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Data
 @Builder
 public class LmStudioApiContext {
     private String model;
+    private Double temperature;
     private String hint;
     private String userContext;
     private String jsonSchema;
     private OutputType type;
     private boolean strictJson;
+    /**
+     * Ask for server-sent events; each text delta goes to {@code streamListener}
+     */
+    private boolean stream;
+    private Consumer<String> streamListener;
 
     private OpenAiResponse response;
     private List<OpenAiRequest.Message> messages;
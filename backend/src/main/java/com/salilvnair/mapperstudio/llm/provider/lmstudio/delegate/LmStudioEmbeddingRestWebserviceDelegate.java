@@ -3,18 +3,22 @@ package com.salilvnair.mapperstudio.llm.provider.lmstudio.delegate;
 import com.github.salilvnair.api.processor.rest.handler.RestWebServiceDelegate;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceRequest;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceResponse;
+import com.salilvnair.mapperstudio.llm.http.LlmHttpTransport;
+import com.salilvnair.mapperstudio.llm.http.LlmOperation;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiEmbeddingResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class LmStudioEmbeddingRestWebserviceDelegate implements RestWebServiceDelegate {
 
-    @Value("${convengine.llm.openai.base-url}")
+    private final LlmHttpTransport transport;
+
+    @Value("${convengine.llm.lmstudio.base-url}")
     private String baseUrl;
 
     @Override
@@ -23,12 +27,7 @@ public class LmStudioEmbeddingRestWebserviceDelegate implements RestWebServiceDe
             Map<String, Object> map,
             Object... objects
     ) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<?> entity = new HttpEntity<>(request, headers);
-        RestTemplate restTemplate = new RestTemplate();
         String apiUrl = baseUrl + "/v1/embeddings";
-        ResponseEntity<OpenAiEmbeddingResponse> response = restTemplate.exchange(apiUrl, HttpMethod.POST, entity, OpenAiEmbeddingResponse.class);
-        return response.getBody();
+        return transport.postJson(LlmHttpTransport.LMSTUDIO, LlmOperation.EMBEDDING, apiUrl, null, request, OpenAiEmbeddingResponse.class);
     }
 }
@@ -3,17 +3,22 @@ package com.salilvnair.mapperstudio.llm.provider.lmstudio.delegate;
 import com.github.salilvnair.api.processor.rest.handler.RestWebServiceDelegate;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceRequest;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceResponse;
+import com.salilvnair.mapperstudio.llm.http.LlmHttpTransport;
+import com.salilvnair.mapperstudio.llm.http.LlmOperation;
+import com.salilvnair.mapperstudio.llm.provider.lmstudio.context.LmStudioApiContext;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class LmStudioRestWebserviceDelegate implements RestWebServiceDelegate {
 
+    private final LlmHttpTransport transport;
+
     @Value("${convengine.llm.lmstudio.base-url}")
     private String baseUrl;
 
@@ -23,20 +28,25 @@ public class LmStudioRestWebserviceDelegate implements RestWebServiceDelegate {
             Map<String, Object> map,
             Object... objects
     ) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<?> entity = new HttpEntity<>(request, headers);
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<OpenAiResponse> response =
-                restTemplate.exchange(
-                        baseUrl + "/v1/chat/completions",
-                        HttpMethod.POST,
-                        entity,
-                        OpenAiResponse.class
-                );
-
-        return response.getBody();
+        LmStudioApiContext ctx = (LmStudioApiContext) objects[0];
+        if (ctx.isStream()) {
+            String text = transport.streamText(
+                    LlmHttpTransport.LMSTUDIO,
+                    LlmOperation.CHAT,
+                    baseUrl + "/v1/chat/completions",
+                    null,
+                    request,
+                    ctx.getStreamListener()
+            );
+            return OpenAiResponse.ofStreamedText(text);
+        }
+        return transport.postJson(
+                LlmHttpTransport.LMSTUDIO,
+                LlmOperation.CHAT,
+                baseUrl + "/v1/chat/completions",
+                null,
+                request,
+                OpenAiResponse.class
+        );
     }
-}
\ No newline at end of file
+}
@@ -34,7 +34,7 @@ public class LmStudioEmbeddingRestWebserviceHandler implements RestWebServiceHan
 
         OpenAiEmbeddingRequest req = new OpenAiEmbeddingRequest();
         req.setModel(ctx.getModel());
-        req.setInput(ctx.getInput());
+        req.setInput(ctx.getInputs() != null ? ctx.getInputs() : ctx.getInput());
 
         return req;
     }
@@ -53,7 +53,28 @@ public class LmStudioEmbeddingRestWebserviceHandler implements RestWebServiceHan
             throw new IllegalStateException("OpenAI embedding response has no data");
         }
 
-        List<Float> embeddingList = resp.getData().get(0).getEmbedding();
+        // batch responses carry "index"; map back by it rather than trusting the order
+        int expected = ctx.getInputs() != null ? ctx.getInputs().size() : 1;
+        float[][] embeddings = new float[expected][];
+        for (int d = 0; d < resp.getData().size(); d++) {
+            OpenAiEmbeddingResponse.Data item = resp.getData().get(d);
+            int index = item.getIndex() != null ? item.getIndex() : d;
+            if (index < 0 || index >= expected) {
+                throw new IllegalStateException("OpenAI embedding index out of range: " + index);
+            }
+            embeddings[index] = toVector(item.getEmbedding());
+        }
+        for (int i = 0; i < expected; i++) {
+            if (embeddings[i] == null) {
+                throw new IllegalStateException("OpenAI embedding response is missing input " + i);
+            }
+        }
+
+        ctx.setEmbeddings(embeddings);
+        ctx.setEmbedding(embeddings[0]);
+    }
+
+    private float[] toVector(List<Float> embeddingList) {
         if (embeddingList == null || embeddingList.isEmpty()) {
             throw new IllegalStateException("OpenAI embedding vector is empty");
         }
@@ -73,8 +94,7 @@ public class LmStudioEmbeddingRestWebserviceHandler implements RestWebServiceHan
         if (norm < 0.01f) {
             throw new IllegalStateException("Embedding vector is near-zero — something is broken");
         }
-
-        ctx.setEmbedding(embedding);
+        return embedding;
     }
 
     @Override
@@ -33,6 +33,8 @@ public class LmStudioRestWebserviceHandler implements RestWebServiceHandler {
 
         OpenAiRequest req = new OpenAiRequest();
         req.setModel(ctx.getModel());
+        req.setTemperature(ctx.getTemperature());
+        req.setStream(ctx.isStream() ? Boolean.TRUE : null);
 
         List<OpenAiRequest.Message> messages = List.of(
                 OpenAiRequest.Message.builder()
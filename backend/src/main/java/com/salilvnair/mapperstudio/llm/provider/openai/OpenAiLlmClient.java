@@ -6,12 +6,17 @@ import com.github.salilvnair.convengine.llm.base.type.OutputType;
 import com.github.salilvnair.convengine.llm.context.LlmInvocationContext;
 import com.github.salilvnair.convengine.llm.core.LlmClient;
 import com.github.salilvnair.convengine.repo.LlmCallLogRepository;
+import com.salilvnair.mapperstudio.llm.cache.LlmResponseCache;
+import com.salilvnair.mapperstudio.llm.embedding.EmbeddingCache;
+import com.salilvnair.mapperstudio.llm.provider.BatchEmbeddingClient;
+import com.salilvnair.mapperstudio.llm.provider.StreamingJsonClient;
 import com.salilvnair.mapperstudio.llm.provider.openai.context.OpenAiApiContext;
 import com.salilvnair.mapperstudio.llm.provider.openai.context.OpenAiEmbeddingApiContext;
 import com.salilvnair.mapperstudio.llm.provider.openai.handler.OpenAiEmbeddingRestWebserviceHandler;
 import com.salilvnair.mapperstudio.llm.provider.openai.handler.OpenAiRestWebserviceHandler;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiRequest;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiResponse;
+import com.salilvnair.mapperstudio.llm.stream.IncrementalJsonArrayParser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -20,6 +25,7 @@ import org.springframework.stereotype.Component;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -29,11 +35,15 @@ import java.util.stream.Collectors;
         havingValue = "openai",
         matchIfMissing = true
 )
-public class OpenAiLlmClient implements LlmClient {
+public class OpenAiLlmClient implements LlmClient, BatchEmbeddingClient, StreamingJsonClient {
+    private static final String EMBEDDING_MODEL = "text-embedding-3-small";
+
     private final LlmCallLogRepository logRepo;
     private final RestWebServiceFacade restWebServiceFacade;
     private final OpenAiRestWebserviceHandler handler;
     private final OpenAiEmbeddingRestWebserviceHandler embeddingHandler;
+    private final EmbeddingCache embeddingCache;
+    private final LlmResponseCache responseCache;
 
 
     @Value("${convengine.llm.provider}")
@@ -42,6 +52,12 @@ public class OpenAiLlmClient implements LlmClient {
     private String temperature;
     @Value("${convengine.llm.openai.model}")
     private String model;
+    @Value("${mapper.llm.embedding.batch-size:256}")
+    private int embeddingBatchSize;
+    @Value("${mapper.llm.embedding.dimensions:0}")
+    private int embeddingDimensions;
+    @Value("${mapper.llm.streaming.enabled:true}")
+    private boolean streaming;
 
     public double temperature() {
         try {
@@ -80,9 +96,30 @@ public class OpenAiLlmClient implements LlmClient {
 
     @Override
     public float[] generateEmbedding(String input) {
+        return embeddingCache.getOrEmbed(embeddingCacheModel(), input, this::requestEmbedding);
+    }
+
+    @Override
+    public float[][] generateEmbeddings(List<String> inputs) {
+        return embeddingCache.getOrEmbedAll(embeddingCacheModel(), inputs, this::requestEmbeddings);
+    }
+
+    private Integer requestedDimensions() {
+        return embeddingDimensions > 0 ? embeddingDimensions : null;
+    }
+
+    /**
+     * Vectors of different sizes must not share cache entries, so a reduced size is part of the cache key.
+     */
+    private String embeddingCacheModel() {
+        return embeddingDimensions > 0 ? EMBEDDING_MODEL + "@" + embeddingDimensions : EMBEDDING_MODEL;
+    }
+
+    private float[] requestEmbedding(String input) {
         OpenAiEmbeddingApiContext ctx = OpenAiEmbeddingApiContext.builder()
-                .model("text-embedding-3-small")
+                .model(EMBEDDING_MODEL)
                 .input(input)
+                .dimensions(requestedDimensions())
                 .build();
 
         restWebServiceFacade.initiate(embeddingHandler, new HashMap<>(), ctx);
@@ -90,6 +127,24 @@ public class OpenAiLlmClient implements LlmClient {
         return ctx.getEmbedding();
     }
 
+    private float[][] requestEmbeddings(List<String> inputs) {
+        float[][] embeddings = new float[inputs.size()][];
+        int chunk = Math.max(1, embeddingBatchSize);
+        for (int from = 0; from < inputs.size(); from += chunk) {
+            List<String> batch = inputs.subList(from, Math.min(inputs.size(), from + chunk));
+            OpenAiEmbeddingApiContext ctx = OpenAiEmbeddingApiContext.builder()
+                    .model(EMBEDDING_MODEL)
+                    .inputs(batch)
+                    .dimensions(requestedDimensions())
+                    .build();
+
+            restWebServiceFacade.initiate(embeddingHandler, new HashMap<>(), ctx);
+
+            System.arraycopy(ctx.getEmbeddings(), 0, embeddings, from, batch.size());
+        }
+        return embeddings;
+    }
+
     private String callLlm(OpenAiApiContext apiContext) {
         LlmInvocationContext ctx = LlmInvocationContext.get();
         CeLlmCallLog log = CeLlmCallLog.builder()
@@ -110,6 +165,22 @@ public class OpenAiLlmClient implements LlmClient {
                 .createdAt(OffsetDateTime.now())
                 .build();
 
+        String cacheKey = responseCache.cacheable(apiContext.getTemperature())
+                ? LlmResponseCache.key(provider, apiContext.getModel(), apiContext.getTemperature(), apiContext.getType(), apiContext.isStrictJson(), apiContext.getHint(), apiContext.getJsonSchema(), apiContext.getUserContext())
+                : null;
+        String cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+        if (cached != null) {
+            // builds the messages the call would have sent, so the log row shows the real prompt
+            handler.prepareRequest(new HashMap<>(), apiContext);
+            String prompt = flattenPrompt(apiContext.getMessages());
+            log.setPromptText(prompt == null ? "" : prompt);
+            log.setProvider(provider + LlmResponseCache.HIT_PROVIDER_SUFFIX);
+            log.setResponseText(cached);
+            log.setSuccess(true);
+            logRepo.save(log);
+            return cached;
+        }
+
         try {
             restWebServiceFacade.initiate(handler, new HashMap<>(), apiContext);
             String prompt = flattenPrompt(apiContext.getMessages());
@@ -118,6 +189,9 @@ public class OpenAiLlmClient implements LlmClient {
             String content = response.extractText();
             log.setResponseText(content);
             log.setSuccess(true);
+            if (cacheKey != null) {
+                responseCache.put(cacheKey, provider, apiContext.getModel(), content, OutputType.JSON.equals(apiContext.getType()));
+            }
             return content;
 
         } catch (Exception e) {
@@ -153,4 +227,28 @@ public class OpenAiLlmClient implements LlmClient {
         return callLlm(apiContext);
     }
 
+    @Override
+    public String generateJsonStrictStreaming(String hint, String jsonSchema, String context, String arrayField, Consumer<String> onElement) {
+        IncrementalJsonArrayParser parser = new IncrementalJsonArrayParser(arrayField, onElement);
+        OpenAiApiContext apiContext =
+                OpenAiApiContext.builder()
+                        .model(model)
+                        .temperature(0.0)
+                        .hint(hint)
+                        .userContext(context)
+                        .jsonSchema(jsonSchema)
+                        .type(OutputType.JSON)
+                        .strictJson(true)
+                        .stream(streaming)
+                        .streamListener(parser::feed)
+                        .build();
+
+        String content = callLlm(apiContext);
+        if (parser.received() == 0) {
+            // not streamed (disabled or cache hit)
+            parser.feed(content);
+        }
+        return content;
+    }
+
 }
@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Data
 @Builder
@@ -20,4 +21,9 @@ public class OpenAiApiContext {
     private OpenAiResponse response;
     private List<OpenAiRequest.Message> messages;
     private boolean strictJson;
+    /**
+     * Ask for server-sent events; each text delta goes to {@code streamListener}
+     */
+    private boolean stream;
+    private Consumer<String> streamListener;
 }
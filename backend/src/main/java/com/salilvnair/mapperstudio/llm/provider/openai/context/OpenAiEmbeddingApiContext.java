@@ -4,6 +4,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 @Builder
@@ -11,7 +13,10 @@ public class OpenAiEmbeddingApiContext {
 
     private String model;
     private String input;
+    private List<String> inputs;
+    private Integer dimensions;
 
     // output
     private float[] embedding;
+    private float[][] embeddings;
 }
@@ -3,17 +3,21 @@ package com.salilvnair.mapperstudio.llm.provider.openai.delegate;
 import com.github.salilvnair.api.processor.rest.handler.RestWebServiceDelegate;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceRequest;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceResponse;
+import com.salilvnair.mapperstudio.llm.http.LlmHttpTransport;
+import com.salilvnair.mapperstudio.llm.http.LlmOperation;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiEmbeddingResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class OpenAiEmbeddingRestWebserviceDelegate implements RestWebServiceDelegate {
 
+    private final LlmHttpTransport transport;
+
     @Value("${convengine.llm.openai.api-key}")
     private String apiKey;
 
@@ -26,13 +30,7 @@ public class OpenAiEmbeddingRestWebserviceDelegate implements RestWebServiceDele
             Map<String, Object> map,
             Object... objects
     ) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<?> entity = new HttpEntity<>(request, headers);
-        RestTemplate restTemplate = new RestTemplate();
         String apiUrl = baseUrl + "/v1/embeddings";
-        ResponseEntity<OpenAiEmbeddingResponse> response = restTemplate.exchange(apiUrl, HttpMethod.POST, entity, OpenAiEmbeddingResponse.class);
-        return response.getBody();
+        return transport.postJson(LlmHttpTransport.OPENAI, LlmOperation.EMBEDDING, apiUrl, apiKey, request, OpenAiEmbeddingResponse.class);
     }
 }
@@ -3,21 +3,22 @@ package com.salilvnair.mapperstudio.llm.provider.openai.delegate;
 import com.github.salilvnair.api.processor.rest.handler.RestWebServiceDelegate;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceRequest;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceResponse;
+import com.salilvnair.mapperstudio.llm.http.LlmHttpTransport;
+import com.salilvnair.mapperstudio.llm.http.LlmOperation;
 import com.salilvnair.mapperstudio.llm.provider.openai.context.OpenAiApiContext;
 import com.salilvnair.mapperstudio.llm.provider.openai.model.OpenAiResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class OpenAiRestWebserviceDelegate implements RestWebServiceDelegate {
 
+    private final LlmHttpTransport transport;
+
     @Value("${convengine.llm.openai.api-key}")
     private String apiKey;
     @Value("${convengine.llm.openai.base-url}")
@@ -26,13 +27,11 @@ public class OpenAiRestWebserviceDelegate implements RestWebServiceDelegate {
     @Override
     public RestWebServiceResponse invoke(RestWebServiceRequest restWebServiceRequest, Map<String, Object> map, Object... objects) {
         OpenAiApiContext ctx = (OpenAiApiContext) objects[0];
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + apiKey);
-        headers.set("Content-Type", "application/json");
-        HttpEntity<?> requestEntity = new HttpEntity<>(restWebServiceRequest, headers);
-        RestTemplate restTemplate = new RestTemplate();
         String apiUrl = baseUrl + (ctx.isStrictJson() ? "/v1/responses" : "/v1/chat/completions");
-        ResponseEntity<OpenAiResponse> responseEntity = restTemplate.exchange(apiUrl, HttpMethod.POST, requestEntity, OpenAiResponse.class);
-        return responseEntity.getBody();
+        if (ctx.isStream()) {
+            String text = transport.streamText(LlmHttpTransport.OPENAI, LlmOperation.CHAT, apiUrl, apiKey, restWebServiceRequest, ctx.getStreamListener());
+            return OpenAiResponse.ofStreamedText(text);
+        }
+        return transport.postJson(LlmHttpTransport.OPENAI, LlmOperation.CHAT, apiUrl, apiKey, restWebServiceRequest, OpenAiResponse.class);
     }
 }
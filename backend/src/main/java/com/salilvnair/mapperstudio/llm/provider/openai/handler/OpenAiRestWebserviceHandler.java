@@ -40,6 +40,7 @@ public class OpenAiRestWebserviceHandler implements RestWebServiceHandler {
         OpenAiRequest req = new OpenAiRequest();
         req.setModel(ctx.getModel());
         req.setTemperature(ctx.getTemperature());
+        req.setStream(ctx.isStream() ? Boolean.TRUE : null);
 
         // ----------------------------
         // TEXT MODE (always non-strict)
@@ -1,12 +1,21 @@
 package com.salilvnair.mapperstudio.llm.provider.openai.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.github.salilvnair.api.processor.rest.model.RestWebServiceRequest;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class OpenAiEmbeddingRequest implements RestWebServiceRequest {
     private String model;
-    private String input;
+    /**
+     * A single string, or a list of strings for a batch.
+     */
+    private Object input;
+    /**
+     * Shortened output size (text-embedding-3 models only); null keeps the model default.
+     */
+    private Integer dimensions;
 }
@@ -12,6 +12,7 @@ public class OpenAiEmbeddingResponse implements RestWebServiceResponse {
 
     @Getter
     public static class Data {
+        private Integer index;
         private List<Float> embedding;
     }
 }
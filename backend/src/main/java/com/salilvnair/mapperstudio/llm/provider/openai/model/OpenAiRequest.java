@@ -17,6 +17,11 @@ public class OpenAiRequest implements RestWebServiceRequest {
     private String model;
     private Double temperature;
 
+    /**
+     * Server-sent events instead of one JSON body (both APIs)
+     */
+    private Boolean stream;
+
     // CHAT COMPLETIONS
     private List<Message> messages;
 
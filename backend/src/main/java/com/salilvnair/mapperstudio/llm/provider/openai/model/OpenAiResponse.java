@@ -71,6 +71,21 @@ public class OpenAiResponse implements RestWebServiceResponse {
         private int totalTokens;
     }
 
+    /**
+     * Response assembled from a streamed completion, so {@link #extractText()} works the same for both modes.
+     */
+    public static OpenAiResponse ofStreamedText(String text) {
+        Message message = new Message();
+        message.setRole("assistant");
+        message.setContent(text);
+        Choice choice = new Choice();
+        choice.setMessage(message);
+        OpenAiResponse response = new OpenAiResponse();
+        response.setObject("stream");
+        response.setChoices(List.of(choice));
+        return response;
+    }
+
     // ======================
     // 🔥 SINGLE SAFE EXTRACTOR
     // ======================
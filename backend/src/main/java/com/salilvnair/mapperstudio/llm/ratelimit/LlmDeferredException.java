@@ -0,0 +1,39 @@
+package com.salilvnair.mapperstudio.llm.ratelimit;
+
+import com.salilvnair.mapperstudio.llm.http.LlmCircuitOpenException;
+import com.salilvnair.mapperstudio.llm.http.LlmHttpException;
+import com.salilvnair.mapperstudio.llm.http.LlmResilience;
+import lombok.Getter;
+
+/**
+ * The provider's request or token budget could not admit a call within {@code mapper.llm.rate-limit.max-wait-ms};
+ * nothing was sent, and the call can be retried after roughly {@code retryAfterMillis}.
+ */
+@Getter
+public class LlmDeferredException extends RuntimeException {
+
+    private final String provider;
+    private final long retryAfterMillis;
+
+    public LlmDeferredException(String provider, long retryAfterMillis) {
+        super(provider + " rate limit reached; request deferred, retry in about " + Math.max(1L, (retryAfterMillis + 999) / 1000) + "s");
+        this.provider = provider;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Milliseconds to wait when {@code error} (or one of its causes) says the provider is saturated (rate limit
+     * deferral, open circuit, or 429 after retries) rather than broken; null for any other failure.
+     */
+    public static Long retryAfterOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LlmDeferredException deferred) {
+                return deferred.getRetryAfterMillis();
+            }
+            if (cause instanceof LlmCircuitOpenException || (cause instanceof LlmHttpException http && http.getStatus() == 429)) {
+                return LlmResilience.retryAfterMillis(((LlmHttpException) cause).getRetryAfter());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.salilvnair.mapperstudio.llm.ratelimit;
+
+/**
+ * Marks LLM calls made on behalf of a user waiting on {@code /api/studio/message}; unmarked calls are background
+ * work and wait behind them in {@link LlmRateLimiter}. Held per thread like ConvEngine's invocation context, and
+ * carried onto fan-out threads by {@code LlmCallExecutor}.
+ */
+public final class LlmPriority {
+
+    private static final ThreadLocal<Boolean> INTERACTIVE = new ThreadLocal<>();
+
+    private LlmPriority() {
+    }
+
+    public static void markInteractive() {
+        INTERACTIVE.set(Boolean.TRUE);
+    }
+
+    public static boolean isInteractive() {
+        return Boolean.TRUE.equals(INTERACTIVE.get());
+    }
+
+    public static void clear() {
+        INTERACTIVE.remove();
+    }
+}
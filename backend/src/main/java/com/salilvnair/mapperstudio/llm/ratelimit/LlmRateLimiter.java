@@ -0,0 +1,181 @@
+package com.salilvnair.mapperstudio.llm.ratelimit;
+
+import com.github.salilvnair.convengine.llm.context.LlmInvocationContext;
+import com.salilvnair.mapperstudio.llm.http.LlmOperation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission for every HTTP attempt to a provider, retries and hedges included. An attempt first waits its turn for
+ * the provider-wide requests-per-minute and tokens-per-minute budget in a {@link TokenBucketScheduler} (interactive
+ * turns ({@link LlmPriority}) ahead of background work, conversations served round-robin), then for one of the
+ * provider's {@code max-concurrency} in-flight slots, so the slots are handed out in the scheduler's order. An attempt
+ * that could not be admitted to the budget within {@code max-wait-ms} fails with {@link LlmDeferredException} without
+ * being sent, instead of adding to a burst of 429s.
+ */
+@Component
+public class LlmRateLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucketScheduler> schedulers = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${mapper.llm.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.llm.rate-limit.max-wait-ms:20000}")
+    private long maxWaitMillis;
+
+    @Value("${mapper.llm.rate-limit.completion-tokens:1000}")
+    private int completionTokens;
+
+    @Value("${mapper.llm.rate-limit.openai.requests-per-minute:500}")
+    private long openAiRequestsPerMinute;
+
+    @Value("${mapper.llm.rate-limit.openai.tokens-per-minute:200000}")
+    private long openAiTokensPerMinute;
+
+    @Value("${mapper.llm.rate-limit.lmstudio.requests-per-minute:0}")
+    private long lmStudioRequestsPerMinute;
+
+    @Value("${mapper.llm.rate-limit.lmstudio.tokens-per-minute:0}")
+    private long lmStudioTokensPerMinute;
+
+    @Value("${mapper.llm.rate-limit.openai.max-concurrency:8}")
+    private int openAiConcurrency;
+
+    @Value("${mapper.llm.rate-limit.lmstudio.max-concurrency:2}")
+    private int lmStudioConcurrency;
+
+    public LlmRateLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Admits one attempt carrying a {@code requestChars}-character request body; a chat attempt also reserves
+     * {@code completion-tokens} for the answer. Close the returned admission once the attempt is over.
+     *
+     * @throws LlmDeferredException when the budget cannot admit it within {@code max-wait-ms}
+     */
+    public Admission admit(String provider, LlmOperation operation, long requestChars) {
+        acquire(provider, tokens(operation, requestChars), maxWaitMillis);
+        Semaphore slots = slots(provider);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(provider + " call interrupted while waiting for an in-flight slot", e);
+        }
+        return new Admission(slots);
+    }
+
+    /**
+     * Like {@link #admit} but without waiting: null when no in-flight slot is free or the budget cannot admit the
+     * attempt right now. Used for optional duplicate (hedged) attempts.
+     */
+    public Admission tryAdmit(String provider, LlmOperation operation, long requestChars) {
+        Semaphore slots = slots(provider);
+        if (!slots.tryAcquire()) {
+            return null;
+        }
+        try {
+            acquire(provider, tokens(operation, requestChars), 0L);
+            return new Admission(slots);
+        } catch (RuntimeException e) {
+            slots.release();
+            return null;
+        }
+    }
+
+    /**
+     * Rough count for English text and JSON: about four characters per token.
+     */
+    private long tokens(LlmOperation operation, long requestChars) {
+        long tokens = (Math.max(0L, requestChars) + 3) / 4;
+        return operation == LlmOperation.CHAT ? tokens + completionTokens : tokens;
+    }
+
+    private void acquire(String provider, long tokens, long waitMillis) {
+        if (!enabled) {
+            return;
+        }
+        TokenBucketScheduler scheduler = scheduler(provider);
+        if (scheduler == null) {
+            return;
+        }
+        LlmInvocationContext invocation = LlmInvocationContext.get();
+        String conversation = invocation != null && invocation.conversationId() != null
+                ? invocation.conversationId().toString()
+                : "";
+        boolean interactive = LlmPriority.isInteractive();
+        String priority = interactive ? "interactive" : "background";
+
+        long started = System.nanoTime();
+        long deferredFor;
+        try {
+            deferredFor = scheduler.acquire(conversation, interactive, tokens, TimeUnit.MILLISECONDS.toNanos(Math.max(0L, waitMillis)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(provider + " call interrupted while waiting for rate limit", e);
+        }
+        meterRegistry.timer("mapper.llm.rate.limit.wait", "provider", provider, "priority", priority)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (deferredFor > 0L) {
+            meterRegistry.counter("mapper.llm.rate.limit.requests", "provider", provider, "priority", priority, "result", "deferred").increment();
+            throw new LlmDeferredException(provider, TimeUnit.NANOSECONDS.toMillis(deferredFor));
+        }
+        meterRegistry.counter("mapper.llm.rate.limit.requests", "provider", provider, "priority", priority, "result", "admitted").increment();
+    }
+
+    private Semaphore slots(String provider) {
+        boolean lmStudio = "lmstudio".equalsIgnoreCase(provider);
+        int concurrency = Math.max(1, lmStudio ? lmStudioConcurrency : openAiConcurrency);
+        return inFlight.computeIfAbsent(lmStudio ? "lmstudio" : "openai", name -> new Semaphore(concurrency, true));
+    }
+
+    /**
+     * Null when the provider has neither limit configured.
+     */
+    private TokenBucketScheduler scheduler(String provider) {
+        boolean lmStudio = "lmstudio".equalsIgnoreCase(provider);
+        long rpm = lmStudio ? lmStudioRequestsPerMinute : openAiRequestsPerMinute;
+        long tpm = lmStudio ? lmStudioTokensPerMinute : openAiTokensPerMinute;
+        if (rpm <= 0 && tpm <= 0) {
+            return null;
+        }
+        return schedulers.computeIfAbsent(lmStudio ? "lmstudio" : "openai", name -> {
+            TokenBucketScheduler scheduler = new TokenBucketScheduler(rpm, tpm);
+            Gauge.builder("mapper.llm.rate.limit.queued", scheduler, TokenBucketScheduler::queued)
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return scheduler;
+        });
+    }
+
+    /**
+     * An admitted attempt's in-flight slot; closing it more than once releases the slot once.
+     */
+    public static final class Admission implements AutoCloseable {
+        private final Semaphore slots;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+
+        private Admission(Semaphore slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public void close() {
+            if (open.compareAndSet(true, false)) {
+                slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.salilvnair.mapperstudio.llm.ratelimit;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Two token buckets (requests and LLM tokens per minute) with a fair admission queue. Only the ticket at the head of
+ * the queue may take from the buckets, so a large prompt is not starved by a stream of small ones. The head is the
+ * oldest ticket of the conversation whose turn it is: interactive conversations first, then background ones, each
+ * class served round-robin by conversation so one conversation's fan-out does not crowd out the others.
+ */
+final class TokenBucketScheduler {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final double requestCapacity;
+    private final double tokenCapacity;
+    private double requests;
+    private double tokens;
+    private long refilledAt;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> interactive = new LinkedHashMap<>();
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> background = new LinkedHashMap<>();
+    private int queued;
+
+    private static final class Ticket {
+        private final long tokens;
+
+        private Ticket(long tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    TokenBucketScheduler(long requestsPerMinute, long tokensPerMinute) {
+        this.requestCapacity = requestsPerMinute > 0 ? requestsPerMinute : Double.POSITIVE_INFINITY;
+        this.tokenCapacity = tokensPerMinute > 0 ? tokensPerMinute : Double.POSITIVE_INFINITY;
+        this.requests = requestCapacity;
+        this.tokens = tokenCapacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Waits for this call's turn and budget; returns 0 once admitted, or the estimated nanoseconds until it could be
+     * admitted when that is beyond {@code maxWaitNanos} (nothing is taken from the buckets then).
+     */
+    long acquire(String conversation, boolean isInteractive, long tokensNeeded, long maxWaitNanos) throws InterruptedException {
+        Ticket ticket = new Ticket((long) Math.min(Math.max(0L, tokensNeeded), tokenCapacity));
+        Map<String, ArrayDeque<Ticket>> queue = isInteractive ? interactive : background;
+        long deadline = System.nanoTime() + Math.max(0L, maxWaitNanos);
+
+        lock.lockInterruptibly();
+        try {
+            queue.computeIfAbsent(conversation, key -> new ArrayDeque<>()).addLast(ticket);
+            queued++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    boolean head = head() == ticket;
+                    long needed = head ? nanosUntilAvailable(ticket) : 0L;
+                    if (head && needed == 0L) {
+                        requests -= 1d;
+                        tokens -= ticket.tokens;
+                        remove(queue, conversation, ticket, true);
+                        return 0L;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0L || needed > remaining) {
+                        long ahead = head ? 0L : queued - 1L;
+                        remove(queue, conversation, ticket, false);
+                        return Math.max(1L, head ? needed : nanosUntilAvailable(ticket) + ahead * nanosPerRequest());
+                    }
+                    changed.awaitNanos(head ? needed : remaining);
+                }
+            } catch (InterruptedException e) {
+                remove(queue, conversation, ticket, false);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Ticket head() {
+        Map<String, ArrayDeque<Ticket>> queue = interactive.isEmpty() ? background : interactive;
+        Iterator<ArrayDeque<Ticket>> first = queue.values().iterator();
+        return first.hasNext() ? first.next().peekFirst() : null;
+    }
+
+    /**
+     * Drops {@code ticket}; after an admission its conversation moves to the back of the round-robin, while a call
+     * that gave up leaves its conversation's place unchanged.
+     */
+    private void remove(Map<String, ArrayDeque<Ticket>> queue, String conversation, Ticket ticket, boolean served) {
+        ArrayDeque<Ticket> tickets = queue.get(conversation);
+        if (tickets != null && tickets.remove(ticket)) {
+            queued--;
+            if (tickets.isEmpty()) {
+                queue.remove(conversation);
+            } else if (served) {
+                queue.remove(conversation);
+                queue.put(conversation, tickets);
+            }
+        }
+        changed.signalAll();
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed <= 0L) {
+            return;
+        }
+        refilledAt = now;
+        requests = Math.min(requestCapacity, requests + requestCapacity * elapsed / NANOS_PER_MINUTE);
+        tokens = Math.min(tokenCapacity, tokens + tokenCapacity * elapsed / NANOS_PER_MINUTE);
+    }
+
+    private long nanosPerRequest() {
+        return Double.isInfinite(requestCapacity) ? 0L : (long) (NANOS_PER_MINUTE / requestCapacity);
+    }
+
+    private long nanosUntilAvailable(Ticket ticket) {
+        double requestGap = Math.max(0d, 1d - requests);
+        double tokenGap = Math.max(0d, ticket.tokens - tokens);
+        double nanos = Math.max(
+                requestGap == 0d ? 0d : requestGap * NANOS_PER_MINUTE / requestCapacity,
+                tokenGap == 0d ? 0d : tokenGap * NANOS_PER_MINUTE / tokenCapacity
+        );
+        return nanos == 0d ? 0L : Math.max(1L, (long) Math.ceil(nanos));
+    }
+}
@@ -0,0 +1,126 @@
+package com.salilvnair.mapperstudio.llm.stream;
+
+import java.util.function.Consumer;
+
+/**
+ * Watches a JSON object arrive in arbitrary fragments and hands over each object element of one top-level array field
+ * (e.g. {@code suggestions}) as soon as its closing brace arrives, as JSON text. Anything before the opening brace
+ * (a markdown fence, say) and after the top-level object closes is ignored; non-object elements are skipped.
+ * The parser only tracks nesting and strings, so a malformed answer simply yields fewer elements.
+ */
+public final class IncrementalJsonArrayParser {
+
+    private final String field;
+    private final Consumer<String> onElement;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private StringBuilder topLevelString;
+    private String lastString;
+    private String lastKey;
+    private int arrayDepth = -1;
+    private StringBuilder element;
+    private long received;
+
+    public IncrementalJsonArrayParser(String field, Consumer<String> onElement) {
+        this.field = field;
+        this.onElement = onElement;
+    }
+
+    public void feed(CharSequence fragment) {
+        if (fragment == null) {
+            return;
+        }
+        received += fragment.length();
+        for (int i = 0; i < fragment.length() && !finished; i++) {
+            accept(fragment.charAt(i));
+        }
+    }
+
+    /**
+     * Characters fed so far.
+     */
+    public long received() {
+        return received;
+    }
+
+    private void accept(char c) {
+        if (element != null) {
+            element.append(c);
+        }
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+                appendTopLevel(c);
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (topLevelString != null) {
+                    lastString = topLevelString.toString();
+                    topLevelString = null;
+                }
+            } else {
+                appendTopLevel(c);
+            }
+            return;
+        }
+        if (!started) {
+            if (c == '{') {
+                started = true;
+                depth = 1;
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                // only keys of the top-level object matter
+                topLevelString = depth == 1 ? new StringBuilder() : null;
+            }
+            case ':' -> {
+                if (depth == 1) {
+                    lastKey = lastString;
+                }
+            }
+            case '{' -> {
+                if (element == null && arrayDepth > 0 && depth == arrayDepth) {
+                    element = new StringBuilder().append('{');
+                }
+                depth++;
+            }
+            case '[' -> {
+                if (depth == 1 && field.equals(lastKey)) {
+                    arrayDepth = depth + 1;
+                }
+                depth++;
+            }
+            case '}', ']' -> {
+                depth--;
+                if (c == '}' && element != null && depth == arrayDepth) {
+                    String complete = element.toString();
+                    element = null;
+                    onElement.accept(complete);
+                }
+                if (arrayDepth > 0 && depth < arrayDepth) {
+                    arrayDepth = -1;
+                }
+                if (depth == 0) {
+                    finished = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void appendTopLevel(char c) {
+        if (topLevelString != null) {
+            topLevelString.append(c);
+        }
+    }
+}
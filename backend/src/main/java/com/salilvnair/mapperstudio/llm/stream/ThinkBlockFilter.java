@@ -0,0 +1,70 @@
+package com.salilvnair.mapperstudio.llm.stream;
+
+import java.util.function.Consumer;
+
+/**
+ * Passes streamed text on to {@code downstream} with every {@code <think>…</think>} block left out, the streaming
+ * counterpart of stripping them from a complete answer. Tags split across fragments are held back until they can be
+ * told apart from ordinary text.
+ */
+public final class ThinkBlockFilter implements Consumer<String> {
+
+    private static final String OPEN = "<think>";
+    private static final String CLOSE = "</think>";
+
+    private final Consumer<String> downstream;
+    private final StringBuilder pending = new StringBuilder();
+    private boolean thinking;
+
+    public ThinkBlockFilter(Consumer<String> downstream) {
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(String fragment) {
+        if (fragment == null || fragment.isEmpty()) {
+            return;
+        }
+        pending.append(fragment);
+        while (!pending.isEmpty()) {
+            String tag = thinking ? CLOSE : OPEN;
+            int at = pending.indexOf(tag);
+            if (at >= 0) {
+                if (!thinking && at > 0) {
+                    downstream.accept(pending.substring(0, at));
+                }
+                pending.delete(0, at + tag.length());
+                thinking = !thinking;
+                continue;
+            }
+            int keep = partialTag(tag);
+            if (!thinking && pending.length() > keep) {
+                downstream.accept(pending.substring(0, pending.length() - keep));
+            }
+            pending.delete(0, pending.length() - keep);
+            return;
+        }
+    }
+
+    /**
+     * Hands over text held back for a tag that never completed; an unclosed think block stays dropped.
+     */
+    public void finish() {
+        if (!thinking && !pending.isEmpty()) {
+            downstream.accept(pending.toString());
+        }
+        pending.setLength(0);
+    }
+
+    /**
+     * Length of the longest tail of {@code pending} that could still grow into {@code tag}.
+     */
+    private int partialTag(String tag) {
+        for (int length = Math.min(tag.length() - 1, pending.length()); length > 0; length--) {
+            if (tag.startsWith(pending.substring(pending.length() - length))) {
+                return length;
+            }
+        }
+        return 0;
+    }
+}
@@ -10,6 +10,8 @@ import com.github.salilvnair.convengine.engine.model.EngineResult;
 import com.github.salilvnair.convengine.model.JsonPayload;
 import com.github.salilvnair.convengine.model.OutputPayload;
 import com.github.salilvnair.convengine.model.TextPayload;
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmDeferredException;
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmPriority;
 import com.salilvnair.mapperstudio.task.model.StudioSessionKeys;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -42,11 +44,18 @@ public class StudioConversationService {
                 .inputParams(inputParams)
                 .build();
 
+        // a user is waiting on this turn: its LLM calls go ahead of background work in the rate limiter
+        LlmPriority.markInteractive();
         try {
             EngineResult result = engine.process(context);
             return toResponse(conversationId, result);
         } catch (Exception ex) {
-            return errorResponse(conversationId, ex);
+            Long retryAfterMillis = LlmDeferredException.retryAfterOf(ex);
+            return retryAfterMillis != null
+                    ? deferredResponse(conversationId, retryAfterMillis)
+                    : errorResponse(conversationId, ex);
+        } finally {
+            LlmPriority.clear();
         }
     }
 
@@ -92,6 +101,23 @@ public class StudioConversationService {
         );
     }
 
+    private StudioMessageResponse deferredResponse(String conversationId, long retryAfterMillis) {
+        long seconds = Math.max(1L, (retryAfterMillis + 999) / 1000);
+        Map<String, Object> ctx = new LinkedHashMap<>();
+        ctx.put(StudioSessionKeys.DEFERRED, true);
+        ctx.put(StudioSessionKeys.RETRY_AFTER_MS, retryAfterMillis);
+        ctx.put("publish_status", "DEFERRED");
+
+        return new StudioMessageResponse(
+                conversationId,
+                StudioSessionKeys.MODE_MAPPING_STUDIO,
+                "DEFERRED",
+                "TEXT",
+                "The model provider is busy right now. Please send the message again in about " + seconds + "s.",
+                toJson(ctx)
+        );
+    }
+
     private String toJson(Map<String, Object> payload) {
         try {
             return objectMapper.writeValueAsString(payload);
@@ -2,17 +2,30 @@ package com.salilvnair.mapperstudio.service.studio.path;
 
 abstract class AbstractPathFormatter {
 
+    /**
+     * Turns '/' into '.', collapses repeated separators and drops a leading/trailing one, in a single pass.
+     */
     protected String normalize(String sourcePath) {
         String value = sourcePath == null ? "" : sourcePath.trim();
-        return value.replaceAll("/+", ".").replaceAll("\\.+", ".").replaceAll("^\\.|\\.$", "");
+        StringBuilder out = new StringBuilder(value.length());
+        boolean pendingDot = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '/' || c == '.') {
+                pendingDot = out.length() > 0;
+                continue;
+            }
+            if (pendingDot) {
+                out.append('.');
+                pendingDot = false;
+            }
+            out.append(c);
+        }
+        return out.toString();
     }
 
     protected String leafInternal(String sourcePath) {
         String normalized = normalize(sourcePath);
-        if (normalized.isBlank()) {
-            return "";
-        }
-        String[] parts = normalized.split("\\.");
-        return parts[parts.length - 1];
+        return normalized.substring(normalized.lastIndexOf('.') + 1);
     }
 }
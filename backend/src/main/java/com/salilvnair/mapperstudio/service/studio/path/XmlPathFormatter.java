@@ -4,7 +4,7 @@ public class XmlPathFormatter extends AbstractPathFormatter implements PathForma
 
     @Override
     public String formatPath(String sourcePath) {
-        String normalized = normalize(sourcePath);
+        String normalized = normalize(sourcePath).replace("[*]", "");
         return normalized.isBlank() ? "/" : "/" + normalized.replace('.', '/');
     }
 
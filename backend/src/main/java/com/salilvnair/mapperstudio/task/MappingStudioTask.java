@@ -4,6 +4,9 @@ import com.github.salilvnair.convengine.engine.rule.task.CeRuleTask;
 import com.github.salilvnair.convengine.engine.session.EngineSession;
 import com.github.salilvnair.convengine.entity.CeRule;
 import com.salilvnair.mapperstudio.task.model.StudioSessionKeys;
+import com.salilvnair.mapperstudio.task.model.SuggestionResult;
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
+import com.salilvnair.mapperstudio.task.model.TargetParseResult;
 import com.salilvnair.mapperstudio.task.model.TargetType;
 import com.salilvnair.mapperstudio.task.service.MappingStudioPersistenceService;
 import com.salilvnair.mapperstudio.task.service.MappingSuggestionService;
@@ -38,6 +41,7 @@ public class MappingStudioTask implements CeRuleTask {
         String targetSchemaXsdName = sessionInputService.readSessionValue(session, StudioSessionKeys.TARGET_SCHEMA_XSD_NAME, StudioSessionKeys.DEFAULT_TARGET_SCHEMA_XSD_NAME);
         String targetSchemaWsdlName = sessionInputService.readSessionValue(session, StudioSessionKeys.TARGET_SCHEMA_WSDL_NAME, StudioSessionKeys.DEFAULT_TARGET_SCHEMA_WSDL_NAME);
         List<Map<String, Object>> targetSchemaXsdList = sessionInputService.readArtifactList(session, StudioSessionKeys.TARGET_SCHEMA_XSD_LIST);
+        boolean collapseArrays = schemaParserService.resolveCollapseArrays(sessionInputService.readSessionValue(session, StudioSessionKeys.COLLAPSE_ARRAYS, ""));
 
         TargetType targetType = TargetType.resolve(sessionInputService.readSessionValue(session, StudioSessionKeys.TARGET_TYPE, StudioSessionKeys.DEFAULT_TARGET_TYPE), targetSchema);
         String effectiveTargetSchema = schemaParserService.resolveEffectiveTargetSchema(
@@ -48,19 +52,22 @@ public class MappingStudioTask implements CeRuleTask {
                 targetSchemaWsdl
         );
 
-        List<Map<String, Object>> sourceFields = schemaParserService.parseSourceFields(sourceSpec);
-        List<Map<String, Object>> targetFields = schemaParserService.parseTargetFields(
+        FieldCatalog sourceFields = schemaParserService.parseSourceFields(sourceSpec, collapseArrays);
+        TargetParseResult targetParse = schemaParserService.parseTargetFieldsWithTimings(
                 effectiveTargetSchema,
                 targetType,
                 targetSchemaXsd,
                 targetSchemaWsdl,
                 targetSchemaXsdName,
                 targetSchemaWsdlName,
-                targetSchemaXsdList
+                targetSchemaXsdList,
+                collapseArrays
         );
 
-        session.putInputParam(StudioSessionKeys.PARSED_SOURCE_FIELDS, sourceFields);
-        session.putInputParam(StudioSessionKeys.PARSED_TARGET_FIELDS, targetFields);
+        session.putInputParam(StudioSessionKeys.PARSED_SOURCE_FIELDS, sourceFields.toRows());
+        session.putInputParam(StudioSessionKeys.PARSED_TARGET_FIELDS, targetParse.fields().toRows());
+        session.putInputParam(StudioSessionKeys.PARSE_ARTIFACT_TIMINGS, targetParse.artifactTimings());
+        session.putInputParam(StudioSessionKeys.PARSE_CACHE_HIT, targetParse.cacheHit());
         session.putInputParam(StudioSessionKeys.TARGET_TYPE_NORMALIZED, targetType.name());
         session.putInputParam(StudioSessionKeys.PARSE_STATUS, StudioSessionKeys.STATUS_DONE);
         session.putInputParam(StudioSessionKeys.PARSE_RESULT, "Parsed source + target schema successfully (" + targetType.name() + ")");
@@ -69,10 +76,15 @@ public class MappingStudioTask implements CeRuleTask {
     }
 
     public void generateSuggestions(EngineSession session, CeRule rule) {
-        List<Map<String, Object>> sourceFields = sessionInputService.readFieldList(session.getInputParams().get(StudioSessionKeys.PARSED_SOURCE_FIELDS));
-        List<Map<String, Object>> targetFields = sessionInputService.readFieldList(session.getInputParams().get(StudioSessionKeys.PARSED_TARGET_FIELDS));
-        List<Map<String, Object>> suggestions = mappingSuggestionService.generateSuggestions(sourceFields, targetFields);
-        session.putInputParam(StudioSessionKeys.MAPPING_SUGGESTIONS, suggestions);
+        FieldCatalog sourceFields = sessionInputService.readFieldCatalog(session.getInputParams().get(StudioSessionKeys.PARSED_SOURCE_FIELDS));
+        FieldCatalog targetFields = sessionInputService.readFieldCatalog(session.getInputParams().get(StudioSessionKeys.PARSED_TARGET_FIELDS));
+        SuggestionResult suggestions = mappingSuggestionService.generateSuggestions(sourceFields, targetFields);
+        session.putInputParam(StudioSessionKeys.MAPPING_SUGGESTIONS, suggestions.suggestions());
+        if (suggestions.retryAfterMillis() != null) {
+            // still DONE: the partial suggestions move on to validation, the UI tells the user to retry
+            session.putInputParam(StudioSessionKeys.DEFERRED, true);
+            session.putInputParam(StudioSessionKeys.RETRY_AFTER_MS, suggestions.retryAfterMillis());
+        }
         session.putInputParam(StudioSessionKeys.SUGGESTION_STATUS, StudioSessionKeys.STATUS_DONE);
     }
 
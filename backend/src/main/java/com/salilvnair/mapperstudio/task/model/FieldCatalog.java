@@ -0,0 +1,471 @@
+package com.salilvnair.mapperstudio.task.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented list of parsed schema fields. Paths are node ids in a {@link PathTrie}, types are byte codes
+ * into a small type table, the required flag lives in a bitset and descriptions / target artifacts are ids
+ * into per-catalog tables, so a 40k-field schema costs a handful of arrays instead of 40k hash maps.
+ * <p>
+ * Rows are only materialized as maps at the session/API boundary via {@link #toRows()}; {@link #fromRows}
+ * reads them back. Keys that have no column of their own are kept as-is in a sparse side table.
+ */
+public final class FieldCatalog {
+
+    public static final byte TYPE_STRING = 0;
+    public static final byte TYPE_NUMBER = 1;
+    public static final byte TYPE_INTEGER = 2;
+    public static final byte TYPE_BOOLEAN = 3;
+    public static final byte TYPE_NULL = 4;
+    public static final byte TYPE_OBJECT = 5;
+    public static final byte TYPE_ARRAY = 6;
+
+    private static final List<String> KNOWN_TYPES = List.of("string", "number", "integer", "boolean", "null", "object", "array");
+    private static final List<String> COLUMN_KEYS = List.of(
+            "path", "type", "required", "description", "targetArtifactName", "targetArtifactType",
+            "occurrences", "minCardinality", "maxCardinality", "observedTypes"
+    );
+    private static final FieldCatalog EMPTY = builder().build();
+
+    private final PathTrie trie;
+    private final int[] pathNodes;
+    private final byte[] types;
+    private final String[] typeTable;
+    private final BitSet required;
+    private final BitSet requiredPresent;
+    private final short[] descriptions;
+    private final String[] descriptionTable;
+    private final short[] artifacts;
+    private final String[] artifactNames;
+    private final String[] artifactTypes;
+    private final int[] occurrences;
+    private final int[] minCardinality;
+    private final int[] maxCardinality;
+    private final byte[][] observedTypes;
+    private final Map<Integer, Map<String, Object>> extras;
+    private volatile int[] firstFieldByNode;
+
+    private FieldCatalog(Builder b) {
+        int n = b.size;
+        this.trie = b.trie.build();
+        this.pathNodes = Arrays.copyOf(b.pathNodes, n);
+        this.types = Arrays.copyOf(b.types, n);
+        this.typeTable = b.typeTable.toArray(String[]::new);
+        this.required = (BitSet) b.required.clone();
+        this.requiredPresent = (BitSet) b.requiredPresent.clone();
+        this.descriptions = Arrays.copyOf(b.descriptions, n);
+        this.descriptionTable = b.descriptionTable.toArray(String[]::new);
+        this.artifacts = Arrays.copyOf(b.artifacts, n);
+        this.artifactNames = b.artifactNames.toArray(String[]::new);
+        this.artifactTypes = b.artifactTypes.toArray(String[]::new);
+        this.occurrences = b.occurrences == null ? null : Arrays.copyOf(b.occurrences, n);
+        this.minCardinality = b.minCardinality == null ? null : Arrays.copyOf(b.minCardinality, n);
+        this.maxCardinality = b.maxCardinality == null ? null : Arrays.copyOf(b.maxCardinality, n);
+        this.observedTypes = b.observedTypes == null ? null : Arrays.copyOf(b.observedTypes, n);
+        Map<Integer, Map<String, Object>> copied = new HashMap<>();
+        b.extras.forEach((i, extra) -> copied.put(i, Map.copyOf(extra)));
+        this.extras = copied;
+    }
+
+    public static FieldCatalog empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return pathNodes.length;
+    }
+
+    public boolean isEmpty() {
+        return pathNodes.length == 0;
+    }
+
+    public String path(int i) {
+        return trie.path(pathNodes[i]);
+    }
+
+    /**
+     * Node of field {@code i} in {@link #paths()}; {@link PathTrie#ROOT} for a blank path.
+     */
+    public int pathNode(int i) {
+        return pathNodes[i];
+    }
+
+    public PathTrie paths() {
+        return trie;
+    }
+
+    public byte typeCode(int i) {
+        return types[i];
+    }
+
+    public String type(int i) {
+        return typeTable[types[i]];
+    }
+
+    public boolean required(int i) {
+        return required.get(i);
+    }
+
+    public boolean hasRequired(int i) {
+        return requiredPresent.get(i);
+    }
+
+    public String description(int i) {
+        return descriptions[i] < 0 ? null : descriptionTable[descriptions[i]];
+    }
+
+    public int artifactId(int i) {
+        return artifacts[i];
+    }
+
+    public String artifactName(int i) {
+        return artifacts[i] < 0 ? null : artifactNames[artifacts[i]];
+    }
+
+    public String artifactType(int i) {
+        return artifacts[i] < 0 ? null : artifactTypes[artifacts[i]];
+    }
+
+    public boolean hasCardinality(int i) {
+        return occurrences != null && occurrences[i] >= 0;
+    }
+
+    /**
+     * First index of {@code path}, or -1.
+     */
+    public int indexOf(String path) {
+        int node = trie.find(path);
+        return node < 0 ? -1 : indexOfNode(node);
+    }
+
+    /**
+     * First index whose path is {@code node}, or -1.
+     */
+    public int indexOfNode(int node) {
+        int[] index = firstFieldByNode;
+        if (index == null) {
+            index = new int[trie.size()];
+            Arrays.fill(index, -1);
+            for (int i = pathNodes.length - 1; i >= 0; i--) {
+                index[pathNodes[i]] = i;
+            }
+            firstFieldByNode = index;
+        }
+        return index[node];
+    }
+
+    /**
+     * Keeps the first field for every non-blank path, in order.
+     */
+    public FieldCatalog dedupeByPath() {
+        Builder out = builder();
+        BitSet seen = new BitSet(trie.size());
+        for (int i = 0; i < pathNodes.length; i++) {
+            if (pathNodes[i] != PathTrie.ROOT && !seen.get(pathNodes[i])) {
+                seen.set(pathNodes[i]);
+                out.add(this, i);
+            }
+        }
+        return out.size == pathNodes.length ? this : out.build();
+    }
+
+    public Map<String, Object> toRow(int i) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("path", path(i));
+        row.put("type", type(i));
+        if (requiredPresent.get(i)) {
+            row.put("required", required.get(i));
+        }
+        if (descriptions[i] >= 0) {
+            row.put("description", descriptionTable[descriptions[i]]);
+        }
+        if (artifacts[i] >= 0) {
+            if (artifactNames[artifacts[i]] != null) {
+                row.put("targetArtifactName", artifactNames[artifacts[i]]);
+            }
+            if (artifactTypes[artifacts[i]] != null) {
+                row.put("targetArtifactType", artifactTypes[artifacts[i]]);
+            }
+        }
+        if (hasCardinality(i)) {
+            row.put("occurrences", occurrences[i]);
+            row.put("minCardinality", minCardinality[i]);
+            row.put("maxCardinality", maxCardinality[i]);
+            List<String> observed = new ArrayList<>(observedTypes[i].length);
+            for (byte code : observedTypes[i]) {
+                observed.add(typeTable[code]);
+            }
+            row.put("observedTypes", observed);
+        }
+        Map<String, Object> extra = extras.get(i);
+        if (extra != null) {
+            row.putAll(extra);
+        }
+        return row;
+    }
+
+    public List<Map<String, Object>> toRows() {
+        List<Map<String, Object>> rows = new ArrayList<>(pathNodes.length);
+        for (int i = 0; i < pathNodes.length; i++) {
+            rows.add(toRow(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Reads rows as produced by {@link #toRows()} (or any list of maps with at least a path); anything else yields an empty catalog.
+     */
+    public static FieldCatalog fromRows(Object raw) {
+        if (raw instanceof FieldCatalog catalog) {
+            return catalog;
+        }
+        if (!(raw instanceof Collection<?> rows)) {
+            return EMPTY;
+        }
+        Builder builder = builder();
+        for (Object item : rows) {
+            if (item instanceof Map<?, ?> row) {
+                builder.addRow(row);
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private int size;
+        private final PathTrie.Builder trie = PathTrie.builder();
+        private int[] pathNodes = new int[64];
+        private byte[] types = new byte[64];
+        private final List<String> typeTable = new ArrayList<>(KNOWN_TYPES);
+        private final Map<String, Byte> typeCodes = new HashMap<>();
+        private final BitSet required = new BitSet();
+        private final BitSet requiredPresent = new BitSet();
+        private short[] descriptions = new short[64];
+        private final List<String> descriptionTable = new ArrayList<>();
+        private final Map<String, Short> descriptionIds = new HashMap<>();
+        private short[] artifacts = new short[64];
+        private final List<String> artifactNames = new ArrayList<>();
+        private final List<String> artifactTypes = new ArrayList<>();
+        private final Map<List<String>, Short> artifactIds = new HashMap<>();
+        private int[] occurrences;
+        private int[] minCardinality;
+        private int[] maxCardinality;
+        private byte[][] observedTypes;
+        private final Map<Integer, Map<String, Object>> extras = new HashMap<>();
+
+        private Builder() {
+            for (int i = 0; i < KNOWN_TYPES.size(); i++) {
+                typeCodes.put(KNOWN_TYPES.get(i), (byte) i);
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends a field; the other builder methods apply to the most recently added one.
+         */
+        public Builder add(String path, String type) {
+            return add(trie.intern(path), type);
+        }
+
+        private Builder add(int pathNode, String type) {
+            if (size == pathNodes.length) {
+                int capacity = size * 2;
+                pathNodes = Arrays.copyOf(pathNodes, capacity);
+                types = Arrays.copyOf(types, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                artifacts = Arrays.copyOf(artifacts, capacity);
+                if (occurrences != null) {
+                    growCardinality(capacity);
+                }
+            }
+            pathNodes[size] = pathNode;
+            types[size] = typeCode(type);
+            descriptions[size] = -1;
+            artifacts[size] = -1;
+            if (occurrences != null) {
+                occurrences[size] = -1;
+            }
+            size++;
+            return this;
+        }
+
+        public Builder required(boolean value) {
+            int i = size - 1;
+            requiredPresent.set(i);
+            required.set(i, value);
+            return this;
+        }
+
+        public Builder description(String value) {
+            if (value == null) {
+                return this;
+            }
+            Short id = descriptionIds.get(value);
+            if (id == null && descriptionTable.size() >= Short.MAX_VALUE) {
+                return extra("description", value);
+            }
+            if (id == null) {
+                descriptionTable.add(value);
+                id = (short) (descriptionTable.size() - 1);
+                descriptionIds.put(value, id);
+            }
+            descriptions[size - 1] = id;
+            return this;
+        }
+
+        public Builder artifact(String name, String type) {
+            if (name == null && type == null) {
+                return this;
+            }
+            List<String> key = Arrays.asList(name, type);
+            Short id = artifactIds.get(key);
+            if (id == null && artifactNames.size() >= Short.MAX_VALUE) {
+                extra("targetArtifactName", name);
+                return extra("targetArtifactType", type);
+            }
+            if (id == null) {
+                artifactNames.add(name);
+                artifactTypes.add(type);
+                id = (short) (artifactNames.size() - 1);
+                artifactIds.put(key, id);
+            }
+            artifacts[size - 1] = id;
+            return this;
+        }
+
+        public Builder cardinality(int occurrenceCount, int min, int max, List<String> observed) {
+            if (occurrences == null) {
+                occurrences = new int[pathNodes.length];
+                minCardinality = new int[pathNodes.length];
+                maxCardinality = new int[pathNodes.length];
+                observedTypes = new byte[pathNodes.length][];
+                Arrays.fill(occurrences, -1);
+            }
+            int i = size - 1;
+            occurrences[i] = occurrenceCount;
+            minCardinality[i] = min;
+            maxCardinality[i] = max;
+            byte[] codes = new byte[observed.size()];
+            for (int k = 0; k < codes.length; k++) {
+                codes[k] = typeCode(observed.get(k));
+            }
+            observedTypes[i] = codes;
+            return this;
+        }
+
+        /**
+         * Copies field {@code i} of {@code source}, including any side-table keys.
+         */
+        public Builder add(FieldCatalog source, int i) {
+            add(trie.intern(source.trie, source.pathNodes[i]), source.type(i));
+            if (source.requiredPresent.get(i)) {
+                required(source.required.get(i));
+            }
+            description(source.description(i));
+            if (source.artifacts[i] >= 0) {
+                artifact(source.artifactName(i), source.artifactType(i));
+            }
+            if (source.hasCardinality(i)) {
+                List<String> observed = new ArrayList<>(source.observedTypes[i].length);
+                for (byte code : source.observedTypes[i]) {
+                    observed.add(source.typeTable[code]);
+                }
+                cardinality(source.occurrences[i], source.minCardinality[i], source.maxCardinality[i], observed);
+            }
+            Map<String, Object> extra = source.extras.get(i);
+            if (extra != null) {
+                extra.forEach(this::extra);
+            }
+            return this;
+        }
+
+        public Builder addAll(FieldCatalog source) {
+            for (int i = 0; i < source.size(); i++) {
+                add(source, i);
+            }
+            return this;
+        }
+
+        public Builder addRow(Map<?, ?> row) {
+            Object path = row.get("path");
+            Object type = row.get("type");
+            add(path == null ? "" : String.valueOf(path), type == null ? "string" : String.valueOf(type));
+            Object requiredValue = row.get("required");
+            if (requiredValue != null) {
+                required(Boolean.parseBoolean(String.valueOf(requiredValue)));
+            }
+            Object descriptionValue = row.get("description");
+            if (descriptionValue != null) {
+                description(String.valueOf(descriptionValue));
+            }
+            Object artifactName = row.get("targetArtifactName");
+            Object artifactType = row.get("targetArtifactType");
+            artifact(artifactName == null ? null : String.valueOf(artifactName), artifactType == null ? null : String.valueOf(artifactType));
+            if (row.get("occurrences") instanceof Number occurrenceCount
+                    && row.get("minCardinality") instanceof Number min
+                    && row.get("maxCardinality") instanceof Number max) {
+                List<String> observed = new ArrayList<>();
+                if (row.get("observedTypes") instanceof Collection<?> list) {
+                    list.forEach(v -> observed.add(String.valueOf(v)));
+                }
+                cardinality(occurrenceCount.intValue(), min.intValue(), max.intValue(), observed);
+            }
+            for (Map.Entry<?, ?> entry : row.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                if (!COLUMN_KEYS.contains(key)) {
+                    extra(key, entry.getValue());
+                }
+            }
+            return this;
+        }
+
+        private Builder extra(String key, Object value) {
+            if (value != null) {
+                extras.computeIfAbsent(size - 1, i -> new LinkedHashMap<>()).put(key, value);
+            }
+            return this;
+        }
+
+        public FieldCatalog build() {
+            return new FieldCatalog(this);
+        }
+
+        private byte typeCode(String type) {
+            String key = type == null || type.isBlank() ? "string" : type;
+            Byte code = typeCodes.get(key);
+            if (code != null) {
+                return code;
+            }
+            if (typeTable.size() > Byte.MAX_VALUE) {
+                return TYPE_STRING;
+            }
+            typeTable.add(key);
+            byte added = (byte) (typeTable.size() - 1);
+            typeCodes.put(key, added);
+            return added;
+        }
+
+        private void growCardinality(int capacity) {
+            int previous = occurrences.length;
+            occurrences = Arrays.copyOf(occurrences, capacity);
+            minCardinality = Arrays.copyOf(minCardinality, capacity);
+            maxCardinality = Arrays.copyOf(maxCardinality, capacity);
+            observedTypes = Arrays.copyOf(observedTypes, capacity);
+            Arrays.fill(occurrences, previous, capacity, -1);
+        }
+    }
+}
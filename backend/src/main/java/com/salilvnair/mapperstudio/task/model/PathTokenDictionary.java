@@ -0,0 +1,108 @@
+package com.salilvnair.mapperstudio.task.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of lower-cased path tokens. Every {@link PathTrie} maps its tokens and leaves to these
+ * ids, so paths from different catalogs (source vs target) compare as plain ints.
+ * <p>
+ * The dictionary is bounded: array indices ({@code [3]}, {@code [17]}) all intern as one {@code [n]} token, and once
+ * {@link #MAX_TOKENS} distinct tokens are known, new ones share {@link #OVERFLOW_IDS} hashed ids (which can only
+ * make unrelated rare tokens look alike). Lookups by id read a copy-on-write array without locking.
+ */
+public final class PathTokenDictionary {
+
+    static final int MAX_TOKENS = 1 << 18;
+    static final int OVERFLOW_IDS = 1 << 12;
+
+    private static final String INDEX_TOKEN = "[n]";
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    private static volatile String[] tokens = new String[1024];
+    private static int size;
+
+    private PathTokenDictionary() {
+    }
+
+    public static int id(String token) {
+        String key = isIndex(token) ? INDEX_TOKEN : token;
+        Integer id = IDS.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (LOCK) {
+            id = IDS.get(key);
+            if (id != null) {
+                return id;
+            }
+            if (size >= MAX_TOKENS) {
+                return MAX_TOKENS + (key.hashCode() & (OVERFLOW_IDS - 1));
+            }
+            String[] table = tokens;
+            if (size == table.length) {
+                table = Arrays.copyOf(table, Math.min(MAX_TOKENS, table.length * 2));
+            }
+            // written before the id is published, and before a later resize copies the table
+            table[size] = key;
+            tokens = table;
+            IDS.put(key, size);
+            return size++;
+        }
+    }
+
+    /**
+     * The token for {@code id}; empty for unknown and overflow ids.
+     */
+    public static String token(int id) {
+        String[] table = tokens;
+        return id < 0 || id >= table.length || table[id] == null ? "" : table[id];
+    }
+
+    private static boolean isIndex(String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits on {@code . [ ] * _ -} and whitespace, then between a lower-case and an upper-case ASCII letter
+     * (camelCase), and lower-cases each piece: {@code customerAddress_Line1} gives customer, address, line1.
+     */
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean separator = isSeparator(c);
+            boolean camelBreak = start >= 0 && !separator && c >= 'A' && c <= 'Z'
+                    && text.charAt(i - 1) >= 'a' && text.charAt(i - 1) <= 'z';
+            if ((separator || camelBreak) && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+            if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return out;
+    }
+
+    private static boolean isSeparator(char c) {
+        return switch (c) {
+            case '.', '[', ']', '*', '_', '-', ' ', '\t', '\n', '\u000B', '\f', '\r' -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,491 @@
+package com.salilvnair.mapperstudio.task.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable trie of field paths. Every distinct path (and path prefix) is a node id with a parent pointer and
+ * an interned segment, so {@code Envelope.Body.Order.Customer.Address.Line1} and its 40 siblings share one copy
+ * of their common prefix.
+ * <p>
+ * Segments are the dot-separated names plus array index groups ({@code a[*].b} is {@code a}, {@code [*]}, {@code b}).
+ * Per node the trie precomputes the sorted, distinct token ids of the whole path, the id of its leaf name
+ * (last segment that is not an array index, lower-cased) and a preorder interval, which makes token, leaf and
+ * prefix lookups O(1) and regex-free. Paths that do not split back into themselves are stored as one raw segment.
+ */
+public final class PathTrie {
+
+    public static final int ROOT = 0;
+
+    private static final int[] NO_TOKENS = new int[0];
+    private static final PathTrie EMPTY = builder().build();
+
+    private final int[] parents;
+    private final int[] segments;
+    private final String[] segmentTable;
+    private final boolean[] rawSegments;
+    private final Map<String, Integer> segmentIds;
+    private final ChildTable children;
+    private final int[][] tokens;
+    private final int[] leafIds;
+    private final int[] preorder;
+    private final int[] subtreeEnd;
+
+    private PathTrie(Builder b) {
+        int n = b.size;
+        this.parents = Arrays.copyOf(b.parents, n);
+        this.segments = Arrays.copyOf(b.segments, n);
+        this.segmentTable = b.segmentTable.toArray(String[]::new);
+        this.rawSegments = Arrays.copyOf(b.rawSegments, segmentTable.length);
+        this.segmentIds = Map.copyOf(b.segmentIds);
+        this.children = b.children.copy();
+
+        int[][] segmentTokens = new int[segmentTable.length][];
+        int[] segmentLeaves = new int[segmentTable.length];
+        for (int s = 0; s < segmentTable.length; s++) {
+            segmentTokens[s] = tokenIds(segmentTable[s]);
+            String leaf = leafName(segmentTable[s]);
+            segmentLeaves[s] = leaf.isEmpty() ? -1 : PathTokenDictionary.id(leaf.toLowerCase(Locale.ROOT));
+        }
+        this.tokens = new int[n][];
+        this.leafIds = new int[n];
+        tokens[ROOT] = NO_TOKENS;
+        leafIds[ROOT] = -1;
+        for (int node = 1; node < n; node++) {
+            int parent = parents[node];
+            int segment = segments[node];
+            tokens[node] = union(tokens[parent], segmentTokens[segment]);
+            leafIds[node] = segmentLeaves[segment] >= 0 ? segmentLeaves[segment] : leafIds[parent];
+        }
+
+        this.preorder = new int[n];
+        this.subtreeEnd = new int[n];
+        numberPreorder(n);
+    }
+
+    public static PathTrie empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return parents.length;
+    }
+
+    public int parent(int node) {
+        return node == ROOT ? -1 : parents[node];
+    }
+
+    public String segment(int node) {
+        return node == ROOT ? "" : segmentTable[segments[node]];
+    }
+
+    public String path(int node) {
+        if (node == ROOT) {
+            return "";
+        }
+        if (parents[node] == ROOT) {
+            return segmentTable[segments[node]];
+        }
+        int depth = 0;
+        int length = 0;
+        for (int n = node; n != ROOT; n = parents[n]) {
+            depth++;
+            length += segmentTable[segments[n]].length() + 1;
+        }
+        int[] chain = new int[depth];
+        for (int n = node, i = depth - 1; n != ROOT; n = parents[n], i--) {
+            chain[i] = n;
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < depth; i++) {
+            String segment = segmentTable[segments[chain[i]]];
+            if (i > 0 && segment.charAt(0) != '[') {
+                out.append('.');
+            }
+            out.append(segment);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Node of {@code path}, or -1 when the path was never interned.
+     */
+    public int find(String path) {
+        if (path == null || path.isBlank()) {
+            return ROOT;
+        }
+        List<String> split = split(path);
+        if (split == null) {
+            Integer raw = segmentIds.get(path);
+            return raw == null ? -1 : children.get(ROOT, raw);
+        }
+        int node = ROOT;
+        for (String segment : split) {
+            Integer id = segmentIds.get(segment);
+            if (id == null) {
+                return -1;
+            }
+            node = children.get(node, id);
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Sorted, distinct ids from {@link PathTokenDictionary} for every token along the path.
+     */
+    public int[] tokens(int node) {
+        return tokens[node];
+    }
+
+    /**
+     * Dictionary id of the lower-cased leaf name, or -1 for the root / index-only paths.
+     */
+    public int leafId(int node) {
+        return leafIds[node];
+    }
+
+    public String leaf(int node) {
+        return leafIds[node] < 0 ? "" : PathTokenDictionary.token(leafIds[node]);
+    }
+
+    /**
+     * True when {@code prefix} is {@code node} or one of its ancestors.
+     */
+    public boolean isPrefixOf(int prefix, int node) {
+        return preorder[prefix] <= preorder[node] && preorder[node] < subtreeEnd[prefix];
+    }
+
+    /**
+     * Number of tokens the two paths share; both arrays come from {@link #tokens(int)}.
+     */
+    public static int overlap(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    private void numberPreorder(int n) {
+        int[] firstChild = new int[n];
+        int[] nextSibling = new int[n];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        for (int node = n - 1; node > ROOT; node--) {
+            nextSibling[node] = firstChild[parents[node]];
+            firstChild[parents[node]] = node;
+        }
+        int counter = 0;
+        int node = ROOT;
+        while (node >= 0) {
+            preorder[node] = counter++;
+            if (firstChild[node] >= 0) {
+                node = firstChild[node];
+                continue;
+            }
+            while (node >= 0) {
+                subtreeEnd[node] = counter;
+                if (node != ROOT && nextSibling[node] >= 0) {
+                    node = nextSibling[node];
+                    break;
+                }
+                node = node == ROOT ? -1 : parents[node];
+            }
+        }
+    }
+
+    private static int[] tokenIds(String segment) {
+        List<String> split = PathTokenDictionary.tokenize(segment);
+        if (split.isEmpty()) {
+            return NO_TOKENS;
+        }
+        int[] ids = new int[split.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = PathTokenDictionary.id(split.get(i));
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    private static int[] union(int[] parent, int[] own) {
+        if (own.length == 0) {
+            return parent;
+        }
+        if (parent.length == 0) {
+            return own;
+        }
+        int[] out = new int[parent.length + own.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < parent.length || j < own.length) {
+            int next;
+            if (j >= own.length || (i < parent.length && parent[i] <= own[j])) {
+                next = parent[i++];
+            } else {
+                next = own[j++];
+            }
+            if (k == 0 || out[k - 1] != next) {
+                out[k++] = next;
+            }
+        }
+        return k == parent.length ? parent : Arrays.copyOf(out, k);
+    }
+
+    /**
+     * Drops {@code [n]} / {@code [*]} groups and keeps what follows the last '.'.
+     */
+    private static String leafName(String segment) {
+        StringBuilder stripped = null;
+        int i = 0;
+        while (i < segment.length()) {
+            int close = indexGroupEnd(segment, i);
+            if (close > 0) {
+                if (stripped == null) {
+                    stripped = new StringBuilder(segment.length()).append(segment, 0, i);
+                }
+                i = close + 1;
+                continue;
+            }
+            if (stripped != null) {
+                stripped.append(segment.charAt(i));
+            }
+            i++;
+        }
+        String name = stripped == null ? segment : stripped.toString();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static int indexGroupEnd(String text, int at) {
+        if (text.charAt(at) != '[') {
+            return -1;
+        }
+        if (at + 2 < text.length() && text.charAt(at + 1) == '*' && text.charAt(at + 2) == ']') {
+            return at + 2;
+        }
+        int i = at + 1;
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i > at + 1 && i < text.length() && text.charAt(i) == ']' ? i : -1;
+    }
+
+    /**
+     * Segments of {@code path}, or null when joining them back would not reproduce it exactly.
+     */
+    private static List<String> split(String path) {
+        List<String> out = new ArrayList<>(8);
+        int i = 0;
+        int n = path.length();
+        while (i < n) {
+            int end;
+            if (path.charAt(i) == '[') {
+                end = indexGroupEnd(path, i) + 1;
+                if (end == 0 || (end < n && path.charAt(end) != '.' && path.charAt(end) != '[')) {
+                    return null;
+                }
+            } else {
+                end = i;
+                while (end < n && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i) {
+                    return null;
+                }
+            }
+            out.add(path.substring(i, end));
+            i = end;
+            if (i < n && path.charAt(i) == '.') {
+                i++;
+                if (i == n || path.charAt(i) == '[' || path.charAt(i) == '.') {
+                    return null;
+                }
+            }
+        }
+        return out;
+    }
+
+    public static final class Builder {
+        private int size = 1;
+        private int[] parents = new int[64];
+        private int[] segments = new int[64];
+        private boolean[] rawSegments = new boolean[16];
+        private final List<String> segmentTable = new ArrayList<>();
+        private final Map<String, Integer> segmentIds = new HashMap<>();
+        private final ChildTable children = new ChildTable(64);
+
+        private Builder() {
+            parents[ROOT] = -1;
+            segments[ROOT] = -1;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Node id for {@code path}, adding it and any missing prefixes. Blank paths map to {@link #ROOT}.
+         */
+        public int intern(String path) {
+            if (path == null || path.isBlank()) {
+                return ROOT;
+            }
+            List<String> split = split(path);
+            if (split == null) {
+                return child(ROOT, segmentId(path, true));
+            }
+            int node = ROOT;
+            for (String segment : split) {
+                node = child(node, segmentId(segment, false));
+            }
+            return node;
+        }
+
+        /**
+         * Same as {@code intern(source.path(node))} without building the string.
+         */
+        public int intern(PathTrie source, int node) {
+            if (node <= ROOT) {
+                return ROOT;
+            }
+            int parent = intern(source, source.parents[node]);
+            int segment = source.segments[node];
+            return child(parent, segmentId(source.segmentTable[segment], source.rawSegments[segment]));
+        }
+
+        public PathTrie build() {
+            return new PathTrie(this);
+        }
+
+        private int segmentId(String segment, boolean raw) {
+            Integer id = segmentIds.get(segment);
+            if (id != null) {
+                return id;
+            }
+            segmentTable.add(segment);
+            int added = segmentTable.size() - 1;
+            if (added == rawSegments.length) {
+                rawSegments = Arrays.copyOf(rawSegments, added * 2);
+            }
+            rawSegments[added] = raw;
+            segmentIds.put(segment, added);
+            return added;
+        }
+
+        private int child(int parent, int segment) {
+            int existing = children.get(parent, segment);
+            if (existing >= 0) {
+                return existing;
+            }
+            if (size == parents.length) {
+                parents = Arrays.copyOf(parents, size * 2);
+                segments = Arrays.copyOf(segments, size * 2);
+            }
+            parents[size] = parent;
+            segments[size] = segment;
+            children.put(parent, segment, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Open-addressing (parent, segment) -> child map on primitive arrays.
+     */
+    private static final class ChildTable {
+        private long[] keys;
+        private int[] values;
+        private int count;
+
+        private ChildTable(int capacity) {
+            keys = new long[Integer.highestOneBit(Math.max(16, capacity) - 1) << 1];
+            values = new int[keys.length];
+            Arrays.fill(values, -1);
+        }
+
+        private int get(int parent, int segment) {
+            long key = key(parent, segment);
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        private void put(int parent, int segment, int child) {
+            if ((count + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            insert(key(parent, segment), child);
+            count++;
+        }
+
+        private void insert(long key, int child) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = child;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private ChildTable copy() {
+            ChildTable out = new ChildTable(16);
+            out.keys = keys.clone();
+            out.values = values.clone();
+            out.count = count;
+            return out;
+        }
+
+        private static long key(int parent, int segment) {
+            return ((long) parent << 32) | (segment & 0xFFFFFFFFL);
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -20,6 +20,7 @@ public final class StudioSessionKeys {
     public static final String TARGET_SCHEMA_XSD_NAME = "targetSchemaXsdName";
     public static final String TARGET_SCHEMA_WSDL_NAME = "targetSchemaWsdlName";
     public static final String TARGET_SCHEMA_XSD_LIST = "targetSchemaXsdList";
+    public static final String COLLAPSE_ARRAYS = "collapseArrays";
 
     public static final String PARSED_SOURCE_FIELDS = "parsed_source_fields";
     public static final String PARSED_TARGET_FIELDS = "parsed_target_fields";
@@ -33,7 +34,11 @@ public final class StudioSessionKeys {
 
     public static final String PARSE_STATUS = "parse_status";
     public static final String PARSE_RESULT = "parse_result";
+    public static final String PARSE_ARTIFACT_TIMINGS = "parse_artifact_timings";
+    public static final String PARSE_CACHE_HIT = "parse_cache_hit";
     public static final String SUGGESTION_STATUS = "suggestion_status";
+    public static final String DEFERRED = "deferred";
+    public static final String RETRY_AFTER_MS = "retryAfterMs";
     public static final String VALIDATION_STATUS = "validation_status";
     public static final String PUBLISH_STATUS = "publish_status";
     public static final String PUBLISH_RESULT = "publish_result";
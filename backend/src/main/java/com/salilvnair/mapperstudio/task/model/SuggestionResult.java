@@ -0,0 +1,13 @@
+package com.salilvnair.mapperstudio.task.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code retryAfterMillis} is set when LLM calls were deferred by the provider's rate limit; the suggestions are
+ * then whatever could be built without them.
+ */
+public record SuggestionResult(
+        List<Map<String, Object>> suggestions,
+        Long retryAfterMillis
+) {}
@@ -0,0 +1,10 @@
+package com.salilvnair.mapperstudio.task.model;
+
+import java.util.List;
+import java.util.Map;
+
+public record TargetParseResult(
+        FieldCatalog fields,
+        List<Map<String, Object>> artifactTimings,
+        boolean cacheHit
+) {}
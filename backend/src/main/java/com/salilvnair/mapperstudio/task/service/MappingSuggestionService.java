@@ -1,258 +1,497 @@
 package com.salilvnair.mapperstudio.task.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.salilvnair.convengine.llm.core.LlmClient;
+import com.salilvnair.mapperstudio.llm.async.AsyncLlmClient;
+import com.salilvnair.mapperstudio.llm.async.LlmCallExecutor;
+import com.salilvnair.mapperstudio.llm.embedding.VectorMath;
+import com.salilvnair.mapperstudio.llm.ratelimit.LlmDeferredException;
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
+import com.salilvnair.mapperstudio.task.model.PathTrie;
+import com.salilvnair.mapperstudio.task.model.SuggestionResult;
+import com.salilvnair.mapperstudio.task.service.match.AssignmentSolver;
+import com.salilvnair.mapperstudio.task.service.match.CandidateGraph;
+import com.salilvnair.mapperstudio.task.service.match.IvfIndex;
+import com.salilvnair.mapperstudio.task.service.match.PromptChunker;
+import com.salilvnair.mapperstudio.task.service.match.QuantizedSourceMatrix;
+import com.salilvnair.mapperstudio.task.service.match.VectorIndexProvider;
+import com.salilvnair.mapperstudio.task.service.match.LexicalSourceIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class MappingSuggestionService {
 
+    private static final String AI_HINT = """
+            Generate source-to-target mapping suggestions.
+            Return top matches for target fields based on semantics and field intent.
+            Use DIRECT transform when no transformation is needed.
+            Prefer covering all required target fields first.
+            """;
+
+    private static final String AI_RESPONSE_SCHEMA = """
+            {
+              "type": "object",
+              "properties": {
+                "suggestions": {
+                  "type": "array",
+                  "items": {
+                    "type": "object",
+                    "properties": {
+                      "sourcePath": {"type":"string"},
+                      "targetPath": {"type":"string"},
+                      "confidence": {"type":"number"},
+                      "transformType": {"type":"string"},
+                      "reason": {"type":"string"}
+                    },
+                    "required": ["sourcePath", "targetPath", "confidence", "transformType", "reason"],
+                    "additionalProperties": false
+                  }
+                }
+              },
+              "required": ["suggestions"],
+              "additionalProperties": false
+            }
+            """;
+
+    private static final String AI_INSTRUCTIONS = "Map each target path to the most appropriate source path. Confidence should be between 0 and 1. Ensure required target fields are not skipped.";
+
     private final ObjectMapper mapper;
-    private final LlmClient llmClient;
+    private final AssignmentSolver assignmentSolver;
+    private final VectorIndexProvider vectorIndexProvider;
+    private final LlmCallExecutor llmCallExecutor;
+    private final AsyncLlmClient asyncLlmClient;
 
-    public List<Map<String, Object>> generateSuggestions(
-            List<Map<String, Object>> sourceFields,
-            List<Map<String, Object>> targetFields
-    ) {
+    @Value("${mapper.llm.embedding.batch-size:256}")
+    private int embeddingBatchSize;
+
+    @Value("${mapper.llm.embedding.quantization.enabled:false}")
+    private boolean quantizedScoring;
+
+    @Value("${mapper.llm.embedding.quantization.rerank-depth:32}")
+    private int rerankDepth;
+
+    @Value("${mapper.suggestions.ai.max-prompt-tokens:8000}")
+    private int aiMaxPromptTokens;
+
+    @Value("${mapper.suggestions.ai.targets-per-chunk:40}")
+    private int aiTargetsPerChunk;
+
+    @Value("${mapper.suggestions.ai.shortlist-size:12}")
+    private int aiShortlistSize;
+
+    @Value("${mapper.suggestions.ai.embedding-shortlist:true}")
+    private boolean aiEmbeddingShortlist;
+
+    public SuggestionResult generateSuggestions(FieldCatalog sourceFields, FieldCatalog targetFields) {
+        Run run = new Run(llmCallExecutor.deadline());
         List<Map<String, Object>> suggestions = buildSuggestions(sourceFields, targetFields);
         if (suggestions.isEmpty()) {
-            suggestions = buildSuggestionsWithAi(sourceFields, targetFields);
+            suggestions = buildSuggestionsWithAi(sourceFields, targetFields, run);
         }
-        suggestions = fillMissingTargetsWithEmbeddings(suggestions, sourceFields, targetFields);
+        suggestions = fillMissingTargetsWithEmbeddings(suggestions, sourceFields, targetFields, run);
         if (suggestions.isEmpty()) {
             suggestions = buildSuggestions(sourceFields, targetFields);
         }
-        return suggestions;
+        return new SuggestionResult(suggestions, run.retryAfterMillis());
     }
 
-    private List<Map<String, Object>> buildSuggestions(List<Map<String, Object>> sourceFields, List<Map<String, Object>> targetFields) {
+    private List<Map<String, Object>> buildSuggestions(FieldCatalog sourceFields, FieldCatalog targetFields) {
         if (sourceFields.isEmpty() || targetFields.isEmpty()) {
             return List.of();
         }
 
         List<Map<String, Object>> suggestions = new ArrayList<>();
-        Set<String> usedSourcePaths = new LinkedHashSet<>();
-
-        for (Map<String, Object> target : targetFields) {
-            String targetPath = String.valueOf(target.getOrDefault("path", ""));
-            if (targetPath.isBlank()) {
-                continue;
-            }
-
-            Match best = null;
-            for (Map<String, Object> source : sourceFields) {
-                String sourcePath = String.valueOf(source.getOrDefault("path", ""));
-                if (sourcePath.isBlank() || usedSourcePaths.contains(sourcePath)) {
-                    continue;
-                }
-                Match candidate = score(sourcePath, targetPath);
-                if (best == null || candidate.score > best.score) {
-                    best = candidate;
-                }
+        LexicalSourceIndex sourceIndex = new LexicalSourceIndex(sourceFields);
+        PathTrie targetPaths = targetFields.paths();
+        CandidateGraph.Builder candidates = CandidateGraph.builder(
+                targetFields.size(),
+                sourceIndex.size(),
+                assignmentSolver.candidatesPerTarget()
+        );
+        for (int t = 0; t < targetFields.size(); t++) {
+            int targetNode = targetFields.pathNode(t);
+            if (targetNode != PathTrie.ROOT) {
+                sourceIndex.offerCandidates(t, targetPaths.tokens(targetNode), targetPaths.leafId(targetNode), assignmentSolver.candidatesPerTarget(), candidates);
             }
+        }
+        AssignmentSolver.Assignment assignment = assignmentSolver.solve(candidates.build());
 
-            if (best == null || best.score < 0.35d) {
+        for (int t = 0; t < targetFields.size(); t++) {
+            int best = assignment.source(t);
+            if (best < 0) {
                 continue;
             }
-
-            usedSourcePaths.add(best.sourcePath);
-            double confidence = Math.min(0.95d, Math.max(0.60d, 0.50d + best.score * 0.45d));
+            int targetNode = targetFields.pathNode(t);
+            int targetLeaf = targetPaths.leafId(targetNode);
+            double confidence = Math.min(0.95d, Math.max(0.60d, 0.50d + assignment.score(t) * 0.45d));
 
             suggestions.add(Map.of(
-                    "sourcePath", best.sourcePath,
-                    "targetPath", targetPath,
+                    "sourcePath", sourceIndex.paths().path(sourceIndex.node(best)),
+                    "targetPath", targetPaths.path(targetNode),
                     "confidence", round2(confidence),
                     "transformType", "DIRECT",
-                    "reason", best.reason,
-                    "targetArtifactName", asString(target.get("targetArtifactName")),
-                    "targetArtifactType", asString(target.get("targetArtifactType"))
+                    "reason", sourceIndex.leafMatches(best, targetLeaf)
+                            ? "Field name and type exact match"
+                            : "Semantic and description similarity",
+                    "targetArtifactName", asString(targetFields.artifactName(t)),
+                    "targetArtifactType", asString(targetFields.artifactType(t))
             ));
         }
 
         return suggestions;
     }
 
-    private Match score(String sourcePath, String targetPath) {
-        Set<String> sourceTokens = normalizeTokens(sourcePath);
-        Set<String> targetTokens = normalizeTokens(targetPath);
-        if (sourceTokens.isEmpty() || targetTokens.isEmpty()) {
-            return new Match(sourcePath, 0d, "Low semantic similarity");
+    /**
+     * Splits the targets into chunks that each fit {@code max-prompt-tokens}, sends every chunk with only its targets'
+     * shortlisted sources, runs the chunks concurrently and merges the answers (see {@link #resolveAiSuggestions}).
+     */
+    private List<Map<String, Object>> buildSuggestionsWithAi(FieldCatalog sourceFields, FieldCatalog targetFields, Run run) {
+        if (sourceFields.isEmpty() || targetFields.isEmpty()) {
+            return List.of();
         }
 
-        int overlap = 0;
-        for (String token : sourceTokens) {
-            if (targetTokens.contains(token)) {
-                overlap++;
+        try {
+            int[] sources = distinctFields(sourceFields);
+            int[] targets = distinctFields(targetFields);
+            if (sources.length == 0 || targets.length == 0) {
+                return List.of();
             }
-        }
 
-        double overlapScore = (double) overlap / (double) Math.max(1, targetTokens.size());
-        String sourceLeaf = leaf(sourcePath);
-        String targetLeaf = leaf(targetPath);
+            // each row also pays for the comma that separates it from the next one
+            int[] sourceTokens = new int[sourceFields.size()];
+            for (int s : sources) {
+                sourceTokens[s] = estimateTokens(mapper.writeValueAsString(sourceFields.toRow(s)) + ",");
+            }
+            int[] targetTokens = new int[targetFields.size()];
+            for (int t : targets) {
+                targetTokens[t] = estimateTokens(mapper.writeValueAsString(targetFields.toRow(t)) + ",");
+            }
+            int baseTokens = estimateTokens(AI_HINT) + estimateTokens(AI_RESPONSE_SCHEMA) + estimateTokens(mapper.writeValueAsString(Map.of(
+                    "sourceFields", List.of(),
+                    "targetFields", List.of(),
+                    "instructions", AI_INSTRUCTIONS
+            )));
+            int[][] shortlists = aiShortlists(sourceFields, sources, sourceTokens, (aiMaxPromptTokens - baseTokens) / 2, targetFields, targets, run);
+            List<PromptChunker.Chunk> chunks = PromptChunker.plan(
+                    targets, shortlists, targetTokens, sourceTokens, baseTokens, aiMaxPromptTokens, aiTargetsPerChunk
+            );
+
+            // streamed rows are collected as they arrive, so a chunk cut off by the deadline still contributes
+            TreeMap<Integer, Map<Integer, Map<String, Object>>> proposals = new TreeMap<>();
+            List<CompletableFuture<String>> calls = new ArrayList<>(chunks.size());
+            for (PromptChunker.Chunk chunk : chunks) {
+                String context = mapper.writeValueAsString(Map.of(
+                        "sourceFields", rows(sourceFields, chunk.sources()),
+                        "targetFields", rows(targetFields, chunk.targets()),
+                        "instructions", AI_INSTRUCTIONS
+                ));
+                Set<Integer> chunkTargets = Arrays.stream(chunk.targets()).boxed().collect(Collectors.toSet());
+                calls.add(asyncLlmClient.generateJsonStrictStreamingAsync(AI_HINT, AI_RESPONSE_SCHEMA, context, "suggestions",
+                        element -> collectStreamedSuggestion(element, chunkTargets, sourceFields, targetFields, proposals),
+                        run.deadline()));
+            }
+            List<String> responses = run.await(calls);
 
-        double leafBonus = sourceLeaf.equalsIgnoreCase(targetLeaf) ? 0.35d : 0d;
-        double score = overlapScore + leafBonus;
-        String reason = sourceLeaf.equalsIgnoreCase(targetLeaf)
-                ? "Field name and type exact match"
-                : "Semantic and description similarity";
-        return new Match(sourcePath, score, reason);
+            synchronized (proposals) {
+                for (int c = 0; c < chunks.size(); c++) {
+                    if (responses.get(c) != null) {
+                        collectAiSuggestions(responses.get(c), chunks.get(c).targets(), sourceFields, targetFields, proposals);
+                    }
+                }
+                return resolveAiSuggestions(proposals, sourceFields, targetFields);
+            }
+        } catch (Exception e) {
+            run.record(e);
+            return List.of();
+        }
     }
 
-    private Set<String> normalizeTokens(String path) {
-        if (path == null || path.isBlank()) {
-            return Set.of();
+    /**
+     * Per target, best first: its lexical candidates, topped up with the nearest sources by embedding, up to
+     * {@code shortlist-size}. Targets left with nothing (no lexical overlap and no usable embeddings) share the
+     * leading sources that fit in {@code fallbackTokens}, so the chunker can still pack them together.
+     */
+    private int[][] aiShortlists(
+            FieldCatalog sourceFields,
+            int[] sources,
+            int[] sourceTokens,
+            int fallbackTokens,
+            FieldCatalog targetFields,
+            int[] targets,
+            Run run
+    ) {
+        int size = Math.max(1, aiShortlistSize);
+        PathTrie targetPaths = targetFields.paths();
+        LexicalSourceIndex lexicalIndex = new LexicalSourceIndex(sourceFields);
+        CandidateGraph.Builder lexicalBuilder = CandidateGraph.builder(targetFields.size(), lexicalIndex.size(), size);
+        for (int t : targets) {
+            int node = targetFields.pathNode(t);
+            lexicalIndex.offerCandidates(t, targetPaths.tokens(node), targetPaths.leafId(node), size, lexicalBuilder);
         }
-        String[] segments = path.split("[.\\[\\]_\\- ]+");
-        Set<String> out = new LinkedHashSet<>();
-        for (String raw : segments) {
-            if (raw == null || raw.isBlank()) {
-                continue;
+        CandidateGraph lexical = lexicalBuilder.build();
+        CandidateGraph nearest = aiEmbeddingShortlist ? nearestSources(sourceFields, sources, targetFields, targets, size, run) : null;
+
+        int fallbackCount = 0;
+        for (int used = 0; fallbackCount < sources.length; fallbackCount++) {
+            used += sourceTokens[sources[fallbackCount]];
+            if (fallbackCount > 0 && used > fallbackTokens) {
+                break;
             }
-            String spaced = raw.replaceAll("([a-z])([A-Z])", "$1 $2");
-            String[] parts = spaced.toLowerCase(Locale.ROOT).split("\\s+");
-            for (String p : parts) {
-                String token = p.trim();
-                if (!token.isBlank()) {
-                    out.add(token);
+        }
+        int[] fallback = Arrays.copyOf(sources, fallbackCount);
+
+        int[][] shortlists = new int[targetFields.size()][];
+        for (int t : targets) {
+            LinkedHashSet<Integer> picked = new LinkedHashSet<>();
+            for (int e = lexical.start(t); e < lexical.end(t); e++) {
+                picked.add(sourceFields.indexOfNode(lexicalIndex.node(lexical.source(e))));
+            }
+            if (nearest != null) {
+                for (int e = nearest.start(t); e < nearest.end(t) && picked.size() < size; e++) {
+                    picked.add(sources[nearest.source(e)]);
                 }
             }
+            shortlists[t] = picked.isEmpty() ? fallback : picked.stream().mapToInt(Integer::intValue).toArray();
         }
-        return out;
+        return shortlists;
     }
 
-    private String leaf(String path) {
-        if (path == null || path.isBlank()) {
-            return "";
+    /**
+     * The {@code size} nearest sources (as positions in {@code sources}) of every target by embedding, or null when
+     * nothing could be embedded.
+     */
+    private CandidateGraph nearestSources(FieldCatalog sourceFields, int[] sources, FieldCatalog targetFields, int[] targets, int size, Run run) {
+        List<String> texts = new ArrayList<>(sources.length + targets.length);
+        for (int s : sources) {
+            texts.add(embeddingText(sourceFields.path(s), sourceFields, s));
         }
-        String normalized = path.replaceAll("\\[[0-9]+\\]", "");
-        int i = normalized.lastIndexOf('.');
-        return i >= 0 ? normalized.substring(i + 1).toLowerCase(Locale.ROOT) : normalized.toLowerCase(Locale.ROOT);
+        for (int t : targets) {
+            texts.add(embeddingText(targetFields.path(t), targetFields, t));
+        }
+        float[][] embeddings = embed(texts, run);
+        float[][] sourceVectors = Arrays.copyOf(embeddings, sources.length);
+        int dim = 0;
+        for (float[] vector : sourceVectors) {
+            if (vector != null && vector.length > 0) {
+                dim = vector.length;
+                break;
+            }
+        }
+        if (dim == 0) {
+            return null;
+        }
+
+        IvfIndex sourceIndex = vectorIndexProvider.open(sourceVectors);
+        float[] sourceMatrix = null;
+        float[] scores = new float[sourceIndex == null ? sources.length : size];
+        int[] rows = new int[size];
+        if (sourceIndex == null) {
+            sourceMatrix = new float[sources.length * dim];
+            for (int r = 0; r < sources.length; r++) {
+                if (sourceVectors[r] != null && sourceVectors[r].length == dim) {
+                    VectorMath.normalizeInto(sourceVectors[r], sourceMatrix, r * dim);
+                }
+            }
+        }
+        CandidateGraph.Builder nearest = CandidateGraph.builder(targetFields.size(), sources.length, size);
+        for (int i = 0; i < targets.length; i++) {
+            float[] query = VectorMath.normalize(embeddings[sources.length + i]);
+            if (query.length != dim) {
+                continue;
+            }
+            if (sourceIndex != null) {
+                int found = sourceIndex.search(query, size, vectorIndexProvider.probes(), null, rows, scores);
+                for (int k = 0; k < found; k++) {
+                    nearest.offer(targets[i], rows[k], scores[k]);
+                }
+                continue;
+            }
+            VectorMath.dotMany(query, sourceMatrix, 0, sources.length, dim, scores);
+            for (int r = 0; r < sources.length; r++) {
+                nearest.offer(targets[i], r, scores[r]);
+            }
+        }
+        return nearest.build();
     }
 
+    /**
+     * Adds the valid rows of one chunk's answer to {@code proposals} (target -> first source field index of the path
+     * -> row). Rows naming an unknown source, or a target that was not in this chunk, are dropped; a pair proposed
+     * twice keeps the higher confidence, so rows already taken from the stream are not duplicated.
+     */
     @SuppressWarnings("unchecked")
-    private List<Map<String, Object>> buildSuggestionsWithAi(
-            List<Map<String, Object>> sourceFields,
-            List<Map<String, Object>> targetFields
+    private void collectAiSuggestions(
+            String raw,
+            int[] chunkTargets,
+            FieldCatalog sourceFields,
+            FieldCatalog targetFields,
+            TreeMap<Integer, Map<Integer, Map<String, Object>>> proposals
     ) {
-        if (sourceFields.isEmpty() || targetFields.isEmpty()) {
-            return List.of();
-        }
-
         try {
-            String hint = """
-                    Generate source-to-target mapping suggestions.
-                    Return top matches for target fields based on semantics and field intent.
-                    Use DIRECT transform when no transformation is needed.
-                    Prefer covering all required target fields first.
-                    """;
-
-            String responseSchema = """
-                    {
-                      "type": "object",
-                      "properties": {
-                        "suggestions": {
-                          "type": "array",
-                          "items": {
-                            "type": "object",
-                            "properties": {
-                              "sourcePath": {"type":"string"},
-                              "targetPath": {"type":"string"},
-                              "confidence": {"type":"number"},
-                              "transformType": {"type":"string"},
-                              "reason": {"type":"string"}
-                            },
-                            "required": ["sourcePath", "targetPath", "confidence", "transformType", "reason"],
-                            "additionalProperties": false
-                          }
-                        }
-                      },
-                      "required": ["suggestions"],
-                      "additionalProperties": false
-                    }
-                    """;
-
-            String context = mapper.writeValueAsString(Map.of(
-                    "sourceFields", sourceFields,
-                    "targetFields", targetFields,
-                    "instructions", "Map each target path to the most appropriate source path. Confidence should be between 0 and 1. Ensure required target fields are not skipped."
-            ));
-
-            String raw = llmClient.generateJsonStrict(hint, responseSchema, context);
             Map<String, Object> parsed = mapper.readValue(raw, Map.class);
             Object suggestionsRaw = parsed.get("suggestions");
             if (!(suggestionsRaw instanceof List<?> list)) {
-                return List.of();
+                return;
             }
-
-            List<Map<String, Object>> suggestions = new ArrayList<>();
-            Set<String> allowedTargets = targetFields.stream()
-                    .map(v -> String.valueOf(v.getOrDefault("path", "")))
-                    .filter(v -> !v.isBlank())
-                    .collect(Collectors.toSet());
-            Map<String, Map<String, Object>> targetByPath = targetFields.stream()
-                    .filter(v -> !asString(v.get("path")).isBlank())
-                    .collect(Collectors.toMap(v -> asString(v.get("path")), v -> v, (a, b) -> a, LinkedHashMap::new));
-            Set<String> allowedSources = sourceFields.stream()
-                    .map(v -> String.valueOf(v.getOrDefault("path", "")))
-                    .filter(v -> !v.isBlank())
-                    .collect(Collectors.toSet());
+            Set<Integer> allowedTargets = Arrays.stream(chunkTargets).boxed().collect(Collectors.toSet());
 
             for (Object item : list) {
-                if (!(item instanceof Map<?, ?> row)) {
-                    continue;
+                if (item instanceof Map<?, ?> row) {
+                    collectAiSuggestion(row, allowedTargets, sourceFields, targetFields, proposals);
                 }
-                String sourcePath = asString(row.get("sourcePath")).trim();
-                String targetPath = asString(row.get("targetPath")).trim();
-                if (!allowedSources.contains(sourcePath) || !allowedTargets.contains(targetPath)) {
-                    continue;
-                }
-                double confidence;
-                Object confidenceRaw = row.get("confidence");
-                if (confidenceRaw instanceof Number num) {
-                    confidence = num.doubleValue();
-                } else {
-                    try {
-                        confidence = Double.parseDouble(String.valueOf(confidenceRaw));
-                    } catch (Exception ignored) {
-                        confidence = 0.0d;
-                    }
-                }
-                confidence = Math.max(0.0d, Math.min(1.0d, confidence));
-
-                Map<String, Object> suggestion = new LinkedHashMap<>();
-                suggestion.put("sourcePath", sourcePath);
-                suggestion.put("targetPath", targetPath);
-                suggestion.put("confidence", round2(confidence));
-                suggestion.put("transformType", asString(row.get("transformType"), "DIRECT"));
-                suggestion.put("reason", asString(row.get("reason"), "AI semantic mapping"));
-                Map<String, Object> targetMeta = targetByPath.get(targetPath);
-                if (targetMeta != null) {
-                    suggestion.put("targetArtifactName", asString(targetMeta.get("targetArtifactName")));
-                    suggestion.put("targetArtifactType", asString(targetMeta.get("targetArtifactType")));
-                }
-                suggestions.add(suggestion);
             }
-            return suggestions;
         } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * One {@code suggestions[]} element taken from a streaming answer before the rest of it has arrived.
+     */
+    private void collectStreamedSuggestion(
+            String element,
+            Set<Integer> allowedTargets,
+            FieldCatalog sourceFields,
+            FieldCatalog targetFields,
+            TreeMap<Integer, Map<Integer, Map<String, Object>>> proposals
+    ) {
+        try {
+            Map<?, ?> row = mapper.readValue(element, Map.class);
+            synchronized (proposals) {
+                collectAiSuggestion(row, allowedTargets, sourceFields, targetFields, proposals);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void collectAiSuggestion(
+            Map<?, ?> row,
+            Set<Integer> allowedTargets,
+            FieldCatalog sourceFields,
+            FieldCatalog targetFields,
+            TreeMap<Integer, Map<Integer, Map<String, Object>>> proposals
+    ) {
+        String sourcePath = asString(row.get("sourcePath")).trim();
+        String targetPath = asString(row.get("targetPath")).trim();
+        int targetIndex = targetPath.isBlank() ? -1 : targetFields.indexOf(targetPath);
+        int sourceIndex = sourcePath.isBlank() ? -1 : sourceFields.indexOf(sourcePath);
+        if (sourceIndex < 0 || !allowedTargets.contains(targetIndex)) {
+            return;
+        }
+        double confidence;
+        Object confidenceRaw = row.get("confidence");
+        if (confidenceRaw instanceof Number num) {
+            confidence = num.doubleValue();
+        } else {
+            try {
+                confidence = Double.parseDouble(String.valueOf(confidenceRaw));
+            } catch (Exception ignored) {
+                confidence = 0.0d;
+            }
+        }
+        confidence = round2(Math.max(0.0d, Math.min(1.0d, confidence)));
+
+        Map<Integer, Map<String, Object>> bySource = proposals.computeIfAbsent(targetIndex, t -> new LinkedHashMap<>());
+        Map<String, Object> previous = bySource.get(sourceIndex);
+        if (previous != null && ((Number) previous.get("confidence")).doubleValue() >= confidence) {
+            return;
+        }
+        Map<String, Object> suggestion = new LinkedHashMap<>();
+        suggestion.put("sourcePath", sourcePath);
+        suggestion.put("targetPath", targetPath);
+        suggestion.put("confidence", confidence);
+        suggestion.put("transformType", asString(row.get("transformType"), "DIRECT"));
+        suggestion.put("reason", asString(row.get("reason"), "AI semantic mapping"));
+        suggestion.put("targetArtifactName", asString(targetFields.artifactName(targetIndex)));
+        suggestion.put("targetArtifactType", asString(targetFields.artifactType(targetIndex)));
+        bySource.put(sourceIndex, suggestion);
+    }
+
+    /**
+     * Chunks see disjoint targets but overlapping sources, so two chunks can claim the same source and one chunk can
+     * offer several sources for a target. Like the lexical stage, the pairing with the best total confidence wins.
+     */
+    private List<Map<String, Object>> resolveAiSuggestions(
+            TreeMap<Integer, Map<Integer, Map<String, Object>>> proposals,
+            FieldCatalog sourceFields,
+            FieldCatalog targetFields
+    ) {
+        if (proposals.isEmpty()) {
             return List.of();
         }
+        int limit = 1;
+        for (Map<Integer, Map<String, Object>> bySource : proposals.values()) {
+            limit = Math.max(limit, bySource.size());
+        }
+        CandidateGraph.Builder candidates = CandidateGraph.builder(targetFields.size(), sourceFields.size(), limit);
+        for (Map.Entry<Integer, Map<Integer, Map<String, Object>>> target : proposals.entrySet()) {
+            for (Map.Entry<Integer, Map<String, Object>> source : target.getValue().entrySet()) {
+                candidates.offer(target.getKey(), source.getKey(), ((Number) source.getValue().get("confidence")).doubleValue());
+            }
+        }
+        AssignmentSolver.Assignment assignment = assignmentSolver.solve(candidates.build());
+
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (Map.Entry<Integer, Map<Integer, Map<String, Object>>> target : proposals.entrySet()) {
+            int source = assignment.source(target.getKey());
+            if (source >= 0) {
+                suggestions.add(target.getValue().get(source));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * First field index of every distinct, non-root path.
+     */
+    private int[] distinctFields(FieldCatalog fields) {
+        int[] out = new int[fields.size()];
+        int count = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            int node = fields.pathNode(i);
+            if (node != PathTrie.ROOT && fields.indexOfNode(node) == i) {
+                out[count++] = i;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private List<Map<String, Object>> rows(FieldCatalog fields, int[] indices) {
+        List<Map<String, Object>> rows = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            rows.add(fields.toRow(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Rough token count for budgeting prompts: about four characters per token for English and JSON.
+     */
+    private static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
     }
 
     private List<Map<String, Object>> fillMissingTargetsWithEmbeddings(
             List<Map<String, Object>> existing,
-            List<Map<String, Object>> sourceFields,
-            List<Map<String, Object>> targetFields
+            FieldCatalog sourceFields,
+            FieldCatalog targetFields,
+            Run run
     ) {
         if (sourceFields.isEmpty() || targetFields.isEmpty()) {
             return existing;
@@ -262,90 +501,192 @@ public class MappingSuggestionService {
         Set<String> coveredTargets = out.stream()
                 .map(s -> asString(s.get("targetPath")))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
-        Set<String> usedSources = out.stream()
-                .map(s -> asString(s.get("sourcePath")))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        PathTrie sourcePaths = sourceFields.paths();
+        BitSet usedSourceNodes = new BitSet(sourcePaths.size());
+        for (Map<String, Object> suggestion : out) {
+            int node = sourcePaths.find(asString(suggestion.get("sourcePath")));
+            if (node > PathTrie.ROOT) {
+                usedSourceNodes.set(node);
+            }
+        }
 
-        Map<String, float[]> sourceEmbeddings = new LinkedHashMap<>();
-        for (Map<String, Object> src : sourceFields) {
-            String sourcePath = asString(src.get("path")).trim();
-            if (sourcePath.isBlank()) {
+        // a persisted index is reused across runs, so it covers every source and used ones are filtered per query
+        boolean indexAllSources = vectorIndexProvider.persistent();
+        List<String> texts = new ArrayList<>();
+        List<Integer> indexedSources = new ArrayList<>();
+        BitSet allowedRows = new BitSet();
+        for (int s = 0; s < sourceFields.size(); s++) {
+            int sourceNode = sourceFields.pathNode(s);
+            if (sourceNode == PathTrie.ROOT || sourceFields.indexOfNode(sourceNode) != s) {
                 continue;
             }
-            sourceEmbeddings.put(sourcePath, embeddingForField(sourcePath, src));
+            boolean used = usedSourceNodes.get(sourceNode);
+            if (used && !indexAllSources) {
+                continue;
+            }
+            if (!used) {
+                allowedRows.set(indexedSources.size());
+            }
+            indexedSources.add(s);
+            texts.add(embeddingText(sourceFields.path(s), sourceFields, s));
         }
-
-        for (Map<String, Object> target : targetFields) {
-            String targetPath = asString(target.get("path")).trim();
-            if (targetPath.isBlank() || coveredTargets.contains(targetPath)) {
+        int sourceTextCount = texts.size();
+        int[] targetTextIndex = new int[targetFields.size()];
+        for (int t = 0; t < targetFields.size(); t++) {
+            targetTextIndex[t] = -1;
+            int targetNode = targetFields.pathNode(t);
+            if (targetNode == PathTrie.ROOT || targetFields.indexOfNode(targetNode) != t || coveredTargets.contains(targetFields.path(t))) {
                 continue;
             }
-            boolean required = Boolean.parseBoolean(String.valueOf(target.getOrDefault("required", false)));
-
-            float[] targetVec = embeddingForField(targetPath, target);
-            String bestSource = null;
-            double bestScore = -1d;
+            targetTextIndex[t] = texts.size();
+            texts.add(embeddingText(targetFields.path(t), targetFields, t));
+        }
+        if (allowedRows.isEmpty() || texts.size() == sourceTextCount) {
+            return out;
+        }
+        float[][] embeddings = embed(texts, run);
+        float[][] sourceVectors = new float[sourceTextCount][];
+        System.arraycopy(embeddings, 0, sourceVectors, 0, sourceTextCount);
+        IvfIndex sourceIndex = vectorIndexProvider.open(sourceVectors);
+        int dim = 0;
+        float[] sourceMatrix = null;
+        QuantizedSourceMatrix quantizedSources = null;
+        int[] matrixRows = null;
+        float[] matrixScores = null;
+        if (sourceIndex == null) {
+            for (float[] vector : sourceVectors) {
+                if (vector != null && vector.length > 0) {
+                    dim = vector.length;
+                    break;
+                }
+            }
+            matrixRows = allowedRows.stream().toArray();
+            if (quantizedScoring) {
+                quantizedSources = QuantizedSourceMatrix.build(sourceVectors, matrixRows, dim);
+            } else {
+                sourceMatrix = new float[matrixRows.length * dim];
+                matrixScores = new float[matrixRows.length];
+                for (int r = 0; r < matrixRows.length; r++) {
+                    float[] vector = sourceVectors[matrixRows[r]];
+                    if (vector != null && vector.length == dim) {
+                        VectorMath.normalizeInto(vector, sourceMatrix, r * dim);
+                    }
+                }
+            }
+        }
 
-            for (Map<String, Object> source : sourceFields) {
-                String sourcePath = asString(source.get("path")).trim();
-                if (sourcePath.isBlank() || usedSources.contains(sourcePath)) {
-                    continue;
+        int limit = assignmentSolver.candidatesPerTarget();
+        int[] hitRows = new int[Math.max(limit, rerankDepth)];
+        float[] hitScores = new float[hitRows.length];
+        // sources are field indices, so the solver sees exactly the catalog's sources
+        CandidateGraph.Builder candidates = CandidateGraph.builder(targetFields.size(), sourceFields.size(), limit);
+        for (int t = 0; t < targetFields.size(); t++) {
+            if (targetTextIndex[t] < 0) {
+                continue;
+            }
+            double minScore = targetFields.required(t) ? 0.25d : 0.40d;
+            float[] targetVec = embeddings[targetTextIndex[t]];
+
+            if (sourceIndex != null) {
+                int found = sourceIndex.search(targetVec, limit, vectorIndexProvider.probes(), allowedRows, hitRows, hitScores);
+                for (int k = 0; k < found; k++) {
+                    if (hitScores[k] >= minScore) {
+                        candidates.offer(t, indexedSources.get(hitRows[k]), hitScores[k]);
+                    }
+                }
+                continue;
+            }
+            float[] query = VectorMath.normalize(targetVec);
+            if (dim == 0 || query.length != dim) {
+                continue;
+            }
+            if (quantizedSources != null) {
+                // shortlist on int8 scores, then re-score against the run's float vectors: exact for sources embedded
+                // in this run, dequantized (so normalized again) for ones read back from the quantized cache
+                int found = quantizedSources.shortlist(query, hitRows.length, hitRows, hitScores);
+                for (int k = 0; k < found; k++) {
+                    int row = matrixRows[hitRows[k]];
+                    double score = VectorMath.dot(query, VectorMath.normalize(sourceVectors[row]));
+                    if (score >= minScore) {
+                        candidates.offer(t, indexedSources.get(row), score);
+                    }
                 }
-                float[] sourceVec = sourceEmbeddings.get(sourcePath);
-                double score = cosine(sourceVec, targetVec);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestSource = sourcePath;
+                continue;
+            }
+            VectorMath.dotMany(query, sourceMatrix, 0, matrixRows.length, dim, matrixScores);
+            for (int r = 0; r < matrixRows.length; r++) {
+                if (matrixScores[r] >= minScore) {
+                    candidates.offer(t, indexedSources.get(matrixRows[r]), matrixScores[r]);
                 }
             }
+        }
+        AssignmentSolver.Assignment assignment = assignmentSolver.solve(candidates.build());
 
-            double minScore = required ? 0.25d : 0.40d;
-            if (bestSource == null || bestScore < minScore) {
+        for (int t = 0; t < targetFields.size(); t++) {
+            int best = assignment.source(t);
+            if (best < 0) {
                 continue;
             }
+            String targetPath = targetFields.path(t);
+            String bestSource = sourceFields.path(best);
 
             Map<String, Object> suggestion = new LinkedHashMap<>();
             suggestion.put("sourcePath", bestSource);
             suggestion.put("targetPath", targetPath);
-            suggestion.put("confidence", round2(Math.max(0.55d, Math.min(0.95d, bestScore))));
+            suggestion.put("confidence", round2(Math.max(0.55d, Math.min(0.95d, assignment.score(t)))));
             suggestion.put("transformType", "DIRECT");
             suggestion.put("reason", "Semantic similarity (embedding)");
-            suggestion.put("targetArtifactName", asString(target.get("targetArtifactName")));
-            suggestion.put("targetArtifactType", asString(target.get("targetArtifactType")));
+            suggestion.put("targetArtifactName", asString(targetFields.artifactName(t)));
+            suggestion.put("targetArtifactType", asString(targetFields.artifactType(t)));
             out.add(suggestion);
-            coveredTargets.add(targetPath);
-            usedSources.add(bestSource);
         }
         return out;
     }
 
-    private float[] embeddingForField(String path, Map<String, Object> field) {
-        String type = asString(field.getOrDefault("type", "string"));
-        String desc = asString(field.getOrDefault("description", ""));
-        String text = "path: " + path + ", type: " + type + ", description: " + desc;
-        try {
-            return llmClient.generateEmbedding(text);
-        } catch (Exception ignored) {
-            return new float[0];
-        }
+    private String embeddingText(String path, FieldCatalog fields, int i) {
+        String type = asString(fields.type(i));
+        String desc = asString(fields.description(i));
+        return "path: " + path + ", type: " + type + ", description: " + desc;
     }
 
-    private double cosine(float[] a, float[] b) {
-        if (a == null || b == null || a.length == 0 || b.length == 0 || a.length != b.length) {
-            return 0d;
+    /**
+     * Vectors for {@code texts}, in order. Texts already embedded earlier in the run come from {@link Run#vectors};
+     * the rest go out in batches of {@code batch-size} sent concurrently, unless the run was already deferred. A batch
+     * that fails or misses the deadline leaves empty vectors, which never score.
+     */
+    private float[][] embed(List<String> texts, Run run) {
+        float[][] embeddings = new float[texts.size()][];
+        List<String> missing = new ArrayList<>();
+        Set<String> queued = new HashSet<>();
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings[i] = run.vectors().get(texts.get(i));
+            if (embeddings[i] == null && queued.add(texts.get(i))) {
+                missing.add(texts.get(i));
+            }
         }
-        double dot = 0d;
-        double na = 0d;
-        double nb = 0d;
-        for (int i = 0; i < a.length; i++) {
-            dot += a[i] * b[i];
-            na += a[i] * a[i];
-            nb += b[i] * b[i];
+        if (!missing.isEmpty() && run.retryAfterMillis() == null) {
+            int chunk = Math.max(1, embeddingBatchSize);
+            List<CompletableFuture<float[][]>> batches = new ArrayList<>();
+            for (int from = 0; from < missing.size(); from += chunk) {
+                batches.add(asyncLlmClient.generateEmbeddingsAsync(missing.subList(from, Math.min(missing.size(), from + chunk)), run.deadline()));
+            }
+            List<float[][]> results = run.await(batches);
+            for (int b = 0; b < results.size(); b++) {
+                float[][] batch = results.get(b);
+                for (int i = b * chunk; batch != null && i < Math.min(missing.size(), (b + 1) * chunk); i++) {
+                    float[] vector = batch[i - b * chunk];
+                    if (vector != null && vector.length > 0) {
+                        run.vectors().put(missing.get(i), vector);
+                    }
+                }
+            }
         }
-        if (na == 0d || nb == 0d) {
-            return 0d;
+        for (int i = 0; i < texts.size(); i++) {
+            if (embeddings[i] == null) {
+                embeddings[i] = run.vectors().getOrDefault(texts.get(i), new float[0]);
+            }
         }
-        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+        return embeddings;
     }
 
     private double round2(double value) {
@@ -361,5 +702,55 @@ public class MappingSuggestionService {
         return str.isBlank() ? defaultValue : str;
     }
 
-    private record Match(String sourcePath, double score, String reason) {}
+    /**
+     * One {@link #generateSuggestions} call: the deadline its LLM calls share, the longest wait any of them was told to
+     * observe because the provider is saturated (calls that fail otherwise just leave gaps), and the vectors embedded
+     * so far, by text, so the AI shortlist and the embedding fill-in do not embed the same fields twice.
+     */
+    private static final class Run {
+        private final long deadline;
+        private final AtomicLong retryAfterMillis = new AtomicLong(-1L);
+        private final Map<String, float[]> vectors = new HashMap<>();
+
+        private Run(long deadline) {
+            this.deadline = deadline;
+        }
+
+        private long deadline() {
+            return deadline;
+        }
+
+        private Map<String, float[]> vectors() {
+            return vectors;
+        }
+
+        private Long retryAfterMillis() {
+            long millis = retryAfterMillis.get();
+            return millis < 0L ? null : millis;
+        }
+
+        private void record(Throwable error) {
+            Long millis = LlmDeferredException.retryAfterOf(error);
+            if (millis != null) {
+                retryAfterMillis.accumulateAndGet(millis, Math::max);
+            }
+        }
+
+        /**
+         * The results of {@code calls} in order; a call that failed or passed the deadline yields null, after its
+         * deferral (if any) is recorded.
+         */
+        private <T> List<T> await(List<CompletableFuture<T>> calls) {
+            List<T> results = new ArrayList<>(calls.size());
+            for (CompletableFuture<T> call : calls) {
+                try {
+                    results.add(call.join());
+                } catch (Exception e) {
+                    record(e);
+                    results.add(null);
+                }
+            }
+            return results;
+        }
+    }
 }
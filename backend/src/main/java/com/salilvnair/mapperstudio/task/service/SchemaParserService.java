@@ -1,8 +1,21 @@
 package com.salilvnair.mapperstudio.task.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
+import com.salilvnair.mapperstudio.task.model.StudioSessionKeys;
+import com.salilvnair.mapperstudio.task.model.TargetParseResult;
 import com.salilvnair.mapperstudio.task.model.TargetType;
+import com.salilvnair.mapperstudio.task.service.cache.ParsedFieldCache;
+import com.salilvnair.mapperstudio.task.service.parser.ArtifactParseExecutor;
+import com.salilvnair.mapperstudio.task.service.parser.CollapsedFieldAggregator;
+import com.salilvnair.mapperstudio.task.service.parser.CollapsedFieldAggregator.CollapsedField;
+import com.salilvnair.mapperstudio.task.service.parser.JsonSchemaFieldWalker;
+import com.salilvnair.mapperstudio.task.service.parser.JsonTokenFieldFlattener;
+import com.salilvnair.mapperstudio.task.service.parser.StaxXmlFieldFlattener;
+import com.salilvnair.mapperstudio.task.service.parser.XsdArtifactResolver;
+import com.salilvnair.mapperstudio.task.service.parser.XsdTypeGraphResolver;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -13,42 +26,87 @@ import org.xml.sax.InputSource;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
 public class SchemaParserService {
 
+    /**
+     * Part of every parse cache key; bump it when a parser change alters the fields produced for the same input, so
+     * entries persisted in SQLite by an older build are not served.
+     */
+    private static final String PARSER_VERSION = "3";
+
     private final ObjectMapper mapper;
+    private final StaxXmlFieldFlattener staxXmlFieldFlattener;
+    private final JsonTokenFieldFlattener jsonTokenFieldFlattener;
+    private final JsonSchemaFieldWalker jsonSchemaFieldWalker;
+    private final ParsedFieldCache parsedFieldCache;
+    private final ArtifactParseExecutor artifactParseExecutor;
+    private final XsdTypeGraphResolver xsdTypeGraphResolver;
+    private final XsdArtifactResolver xsdArtifactResolver;
+
+    @Value("${mapper.parser.streaming-threshold-chars:1048576}")
+    private int streamingThresholdChars;
+
+    @Value("${mapper.parser.collapse-arrays:false}")
+    private boolean collapseArrays;
+
+    @Value("${mapper.parser.xsd.hierarchical-paths:true}")
+    private boolean xsdHierarchicalPaths;
+
+    public boolean resolveCollapseArrays(String rawValue) {
+        if (rawValue == null || rawValue.isBlank()) {
+            return collapseArrays;
+        }
+        return Boolean.parseBoolean(rawValue.trim());
+    }
+
+    public FieldCatalog parseSourceFields(String sourceSpecText) {
+        return parseSourceFields(sourceSpecText, collapseArrays);
+    }
 
-    public List<Map<String, Object>> parseSourceFields(String sourceSpecText) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    public FieldCatalog parseSourceFields(String sourceSpecText, boolean collapseArrays) {
+        String cacheKey = parsedFieldCache.key("SOURCE", PARSER_VERSION, String.valueOf(collapseArrays), sourceSpecText);
+        return parsedFieldCache.getOrParse(cacheKey, () -> parseSourceFieldsUncached(sourceSpecText, collapseArrays));
+    }
+
+    private FieldCatalog parseSourceFieldsUncached(String sourceSpecText, boolean collapseArrays) {
         try {
             String trimmed = sourceSpecText == null ? "" : sourceSpecText.trim();
             if (trimmed.startsWith("<")) {
-                fields.addAll(parseXmlFields(trimmed));
+                return collapseArrays ? parseXmlFieldsCollapsed(trimmed) : parseXmlFields(trimmed);
+            }
+            FieldCatalog.Builder fields = FieldCatalog.builder();
+            if (collapseArrays) {
+                CollapsedFieldAggregator aggregator = new CollapsedFieldAggregator(true);
+                jsonTokenFieldFlattener.flatten(sourceSpecText, aggregator::accept);
+                for (CollapsedField field : aggregator.fields()) {
+                    addCollapsedSourceField(fields, field, "Extracted from source JSON");
+                }
             } else {
-                Object root = mapper.readValue(sourceSpecText, Object.class);
-                flattenSource(root, "", fields);
+                jsonTokenFieldFlattener.flatten(sourceSpecText, (path, type) -> fields.add(path, type).description("Extracted from source JSON"));
             }
+            return fields.build();
         } catch (Exception ignored) {
+            FieldCatalog.Builder fallback = FieldCatalog.builder();
             if (sourceSpecText != null && !sourceSpecText.isBlank()) {
-                fields.add(Map.of(
-                        "path", "sourceSpec",
-                        "type", "string",
-                        "description", "Raw source input"
-                ));
+                fallback.add("sourceSpec", "string").description("Raw source input");
             }
+            return fallback.build();
         }
-        return fields;
     }
 
-    public List<Map<String, Object>> parseTargetFields(
+    public FieldCatalog parseTargetFields(
             String targetSchemaText,
             TargetType targetType,
             String targetSchemaXsd,
@@ -56,9 +114,134 @@ public class SchemaParserService {
             String targetSchemaXsdName,
             String targetSchemaWsdlName,
             List<Map<String, Object>> targetSchemaXsdList
+    ) {
+        return parseTargetFields(
+                targetSchemaText,
+                targetType,
+                targetSchemaXsd,
+                targetSchemaWsdl,
+                targetSchemaXsdName,
+                targetSchemaWsdlName,
+                targetSchemaXsdList,
+                collapseArrays
+        );
+    }
+
+    public FieldCatalog parseTargetFields(
+            String targetSchemaText,
+            TargetType targetType,
+            String targetSchemaXsd,
+            String targetSchemaWsdl,
+            String targetSchemaXsdName,
+            String targetSchemaWsdlName,
+            List<Map<String, Object>> targetSchemaXsdList,
+            boolean collapseArrays
+    ) {
+        return parseTargetFieldsWithTimings(
+                targetSchemaText,
+                targetType,
+                targetSchemaXsd,
+                targetSchemaWsdl,
+                targetSchemaXsdName,
+                targetSchemaWsdlName,
+                targetSchemaXsdList,
+                collapseArrays
+        ).fields();
+    }
+
+    public TargetParseResult parseTargetFieldsWithTimings(
+            String targetSchemaText,
+            TargetType targetType,
+            String targetSchemaXsd,
+            String targetSchemaWsdl,
+            String targetSchemaXsdName,
+            String targetSchemaWsdlName,
+            List<Map<String, Object>> targetSchemaXsdList,
+            boolean collapseArrays
+    ) {
+        List<String> keyParts = new ArrayList<>(Arrays.asList(
+                PARSER_VERSION,
+                xsdTypeGraphResolver.settingsKey(),
+                xsdArtifactResolver.settingsKey(),
+                jsonSchemaFieldWalker.settingsKey(),
+                targetType.name(),
+                String.valueOf(collapseArrays),
+                String.valueOf(xsdHierarchicalPaths),
+                targetSchemaText,
+                targetSchemaXsd,
+                targetSchemaWsdl,
+                targetSchemaXsdName,
+                targetSchemaWsdlName
+        ));
+        if (targetSchemaXsdList != null) {
+            for (Map<String, Object> artifact : targetSchemaXsdList) {
+                keyParts.add(asString(artifact.get("name")));
+                keyParts.add(asString(artifact.get("content")));
+            }
+        }
+        String cacheKey = parsedFieldCache.key("TARGET", keyParts.toArray(String[]::new));
+        List<Map<String, Object>> artifactTimings = new ArrayList<>();
+        AtomicBoolean parsed = new AtomicBoolean();
+        FieldCatalog fields = parsedFieldCache.getOrParse(cacheKey, () -> {
+            parsed.set(true);
+            return parseTargetFieldsUncached(
+                    targetSchemaText,
+                    targetType,
+                    targetSchemaXsd,
+                    targetSchemaWsdl,
+                    targetSchemaXsdName,
+                    targetSchemaWsdlName,
+                    targetSchemaXsdList,
+                    collapseArrays,
+                    artifactTimings
+            );
+        });
+        return new TargetParseResult(fields, artifactTimings, !parsed.get());
+    }
+
+    private FieldCatalog parseTargetFieldsUncached(
+            String targetSchemaText,
+            TargetType targetType,
+            String targetSchemaXsd,
+            String targetSchemaWsdl,
+            String targetSchemaXsdName,
+            String targetSchemaWsdlName,
+            List<Map<String, Object>> targetSchemaXsdList,
+            boolean collapseArrays,
+            List<Map<String, Object>> artifactTimings
+    ) {
+        long started = System.nanoTime();
+        FieldCatalog fields = parseTargetFieldsByType(
+                targetSchemaText,
+                targetType,
+                targetSchemaXsd,
+                targetSchemaWsdl,
+                targetSchemaXsdName,
+                targetSchemaWsdlName,
+                targetSchemaXsdList,
+                collapseArrays,
+                artifactTimings
+        );
+        if (artifactTimings.isEmpty()) {
+            artifactTimings.add(new ParsedArtifact("targetSchema", targetType.name(), fields, elapsedMillis(started)).timing());
+        }
+        return fields;
+    }
+
+    private FieldCatalog parseTargetFieldsByType(
+            String targetSchemaText,
+            TargetType targetType,
+            String targetSchemaXsd,
+            String targetSchemaWsdl,
+            String targetSchemaXsdName,
+            String targetSchemaWsdlName,
+            List<Map<String, Object>> targetSchemaXsdList,
+            boolean collapseArrays,
+            List<Map<String, Object>> artifactTimings
     ) {
         if (TargetType.XSD_WSDL == targetType) {
-            List<Map<String, Object>> merged = new ArrayList<>();
+            Map<String, String> uploaded = new LinkedHashMap<>();
+            List<Callable<ParsedArtifact>> artifacts = new ArrayList<>();
             if (targetSchemaXsdList != null && !targetSchemaXsdList.isEmpty()) {
                 for (Map<String, Object> artifact : targetSchemaXsdList) {
                     String content = asString(artifact.get("content")).trim();
@@ -66,44 +249,53 @@ public class SchemaParserService {
                         continue;
                     }
                     String name = asString(artifact.get("name"), "target.xsd");
-                    merged.addAll(parseXmlTargetFields(content, name, "XSD"));
+                    uploaded.putIfAbsent(name, content);
+                    artifacts.add(() -> parseXmlTargetArtifact(content, name, "XSD", uploaded));
                 }
             } else if (targetSchemaXsd != null && !targetSchemaXsd.isBlank()) {
-                merged.addAll(parseXmlTargetFields(targetSchemaXsd, targetSchemaXsdName, "XSD"));
+                uploaded.putIfAbsent(asString(targetSchemaXsdName, StudioSessionKeys.DEFAULT_TARGET_SCHEMA_XSD_NAME), targetSchemaXsd);
+                artifacts.add(() -> parseXmlTargetArtifact(targetSchemaXsd, targetSchemaXsdName, "XSD", uploaded));
             }
             if (targetSchemaWsdl != null && !targetSchemaWsdl.isBlank()) {
-                merged.addAll(parseXmlTargetFields(targetSchemaWsdl, targetSchemaWsdlName, "WSDL"));
+                uploaded.putIfAbsent(asString(targetSchemaWsdlName, StudioSessionKeys.DEFAULT_TARGET_SCHEMA_WSDL_NAME), targetSchemaWsdl);
+                artifacts.add(() -> parseXmlTargetArtifact(targetSchemaWsdl, targetSchemaWsdlName, "WSDL", uploaded));
             }
-            if (!merged.isEmpty()) {
-                return dedupeTargetFieldsByPath(merged);
+
+            FieldCatalog.Builder merged = FieldCatalog.builder();
+            for (ParsedArtifact parsed : artifactParseExecutor.invokeAllOrdered(artifacts)) {
+                merged.addAll(parsed.fields());
+                artifactTimings.add(parsed.timing());
+            }
+            if (merged.size() > 0) {
+                return merged.build().dedupeByPath();
             }
         }
 
         if (TargetType.JSON == targetType) {
-            return parseJsonTargetFields(targetSchemaText);
+            return parseJsonTargetFields(targetSchemaText, collapseArrays);
         }
 
         if (TargetType.JSON_SCHEMA == targetType) {
-            List<Map<String, Object>> schemaFields = parseJsonSchemaTargetFields(targetSchemaText);
+            FieldCatalog schemaFields = parseJsonSchemaTargetFields(targetSchemaText);
             if (!schemaFields.isEmpty()) {
                 return schemaFields;
             }
-            return parseJsonTargetFields(targetSchemaText);
+            return parseJsonTargetFields(targetSchemaText, collapseArrays);
         }
 
         if (TargetType.XML == targetType) {
-            return parseXmlPayloadTargetFields(targetSchemaText);
+            return parseXmlPayloadTargetFields(targetSchemaText, collapseArrays);
         }
 
         if (targetType.isXmlType() || TargetType.looksLikeXml(targetSchemaText)) {
-            return parseXmlTargetFields(targetSchemaText, targetSchemaXsdName, "XSD");
+            return parseXmlTargetFields(targetSchemaText, targetSchemaXsdName, "XSD", Map.of());
         }
 
-        List<Map<String, Object>> schemaFields = parseJsonSchemaTargetFields(targetSchemaText);
+        FieldCatalog schemaFields = parseJsonSchemaTargetFields(targetSchemaText);
         if (!schemaFields.isEmpty()) {
             return schemaFields;
         }
-        return parseJsonTargetFields(targetSchemaText);
+        return parseJsonTargetFields(targetSchemaText, collapseArrays);
     }
 
     public String resolveEffectiveTargetSchema(
@@ -150,8 +342,11 @@ public class SchemaParserService {
         }
     }
 
-    private List<Map<String, Object>> parseXmlFields(String xmlText) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    private FieldCatalog parseXmlFields(String xmlText) {
+        if (xmlText.length() > streamingThresholdChars) {
+            return parseXmlFieldsStreaming(xmlText);
+        }
+        FieldCatalog.Builder fields = FieldCatalog.builder();
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setNamespaceAware(false);
@@ -162,10 +357,43 @@ public class SchemaParserService {
             }
         } catch (Exception ignored) {
         }
-        return fields;
+        return fields.build();
     }
 
-    private void flattenXmlElement(Element element, String path, List<Map<String, Object>> out) {
+    private FieldCatalog parseXmlFieldsStreaming(String xmlText) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
+        try {
+            staxXmlFieldFlattener.flatten(xmlText, path -> fields.add(path, "string").description("Extracted from source XML"));
+        } catch (Exception ignored) {
+            return FieldCatalog.empty();
+        }
+        return fields.build();
+    }
+
+    private FieldCatalog parseXmlFieldsCollapsed(String xmlText) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
+        try {
+            CollapsedFieldAggregator aggregator = new CollapsedFieldAggregator(false);
+            staxXmlFieldFlattener.flatten(xmlText, true, true, path -> aggregator.accept(path, "string"));
+            for (CollapsedField field : aggregator.fields()) {
+                addCollapsedSourceField(fields, field, "Extracted from source XML");
+            }
+        } catch (Exception ignored) {
+            return FieldCatalog.empty();
+        }
+        return fields.build();
+    }
+
+    private void addCollapsedSourceField(FieldCatalog.Builder fields, CollapsedField field, String description) {
+        fields.add(field.path(), field.type()).description(description);
+        putCardinalityStats(fields, field);
+    }
+
+    private void putCardinalityStats(FieldCatalog.Builder fields, CollapsedField field) {
+        fields.cardinality(field.occurrences(), field.minCardinality(), field.maxCardinality(), field.observedTypes());
+    }
+
+    private void flattenXmlElement(Element element, String path, FieldCatalog.Builder out) {
         NodeList children = element.getChildNodes();
         boolean hasElementChildren = false;
         for (int i = 0; i < children.getLength(); i++) {
@@ -181,125 +409,52 @@ public class SchemaParserService {
         if (!hasElementChildren) {
             String value = element.getTextContent() == null ? "" : element.getTextContent().trim();
             if (!value.isBlank()) {
-                out.add(Map.of(
-                        "path", path,
-                        "type", "string",
-                        "description", "Extracted from source XML"
-                ));
+                out.add(path, "string").description("Extracted from source XML");
             }
         }
     }
 
-    private void flattenSource(Object node, String path, List<Map<String, Object>> out) {
-        if (node instanceof Map<?, ?> map) {
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = String.valueOf(entry.getKey());
-                String childPath = path.isBlank() ? key : path + "." + key;
-                flattenSource(entry.getValue(), childPath, out);
-            }
-            return;
-        }
-        if (node instanceof List<?> list) {
-            for (int i = 0; i < list.size(); i++) {
-                String childPath = path + "[" + i + "]";
-                flattenSource(list.get(i), childPath, out);
-            }
-            return;
-        }
-
-        String type = inferType(node);
-        out.add(Map.of(
-                "path", path.isBlank() ? "root" : path,
-                "type", type,
-                "description", "Extracted from source JSON"
-        ));
-    }
-
-    private List<Map<String, Object>> dedupeTargetFieldsByPath(List<Map<String, Object>> rows) {
-        Map<String, Map<String, Object>> index = new LinkedHashMap<>();
-        for (Map<String, Object> row : rows) {
-            String path = String.valueOf(row.getOrDefault("path", ""));
-            if (path.isBlank()) {
-                continue;
-            }
-            index.putIfAbsent(path, row);
-        }
-        return new ArrayList<>(index.values());
-    }
-
-    private List<Map<String, Object>> parseJsonSchemaTargetFields(String targetSchemaText) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    private FieldCatalog parseJsonSchemaTargetFields(String targetSchemaText) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
         try {
-            Map<?, ?> schema = mapper.readValue(targetSchemaText, Map.class);
-            Set<String> required = new LinkedHashSet<>();
-            Object requiredRaw = schema.get("required");
-            if (requiredRaw instanceof List<?> list) {
-                for (Object item : list) {
-                    required.add(String.valueOf(item));
-                }
-            }
-            Object propsRaw = schema.get("properties");
-            if (propsRaw instanceof Map<?, ?> props) {
-                for (Map.Entry<?, ?> entry : props.entrySet()) {
-                    String targetPath = String.valueOf(entry.getKey());
-                    String type = "string";
-                    if (entry.getValue() instanceof Map<?, ?> typeMap) {
-                        Object t = typeMap.get("type");
-                        if (t != null) {
-                            type = String.valueOf(t);
-                        }
-                    }
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    row.put("path", targetPath);
-                    row.put("type", type);
-                    row.put("required", required.contains(targetPath));
-                    fields.add(row);
-                }
+            for (JsonSchemaFieldWalker.SchemaLeaf leaf : jsonSchemaFieldWalker.walk(targetSchemaText)) {
+                fields.add(leaf.path(), leaf.type()).required(leaf.required());
             }
         } catch (Exception ignored) {
         }
-        return fields;
+        return fields.build().dedupeByPath();
     }
 
-    private List<Map<String, Object>> parseJsonTargetFields(String targetJsonText) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    private FieldCatalog parseJsonTargetFields(String targetJsonText, boolean collapseArrays) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
         try {
-            Object root = mapper.readValue(targetJsonText, Object.class);
-            flattenJsonTargetNode(root, "", fields);
+            if (collapseArrays) {
+                CollapsedFieldAggregator aggregator = new CollapsedFieldAggregator(true);
+                jsonTokenFieldFlattener.flatten(targetJsonText, aggregator::accept);
+                for (CollapsedField field : aggregator.fields()) {
+                    addJsonTargetField(fields, field.path(), field.type());
+                    putCardinalityStats(fields, field);
+                }
+            } else {
+                jsonTokenFieldFlattener.flatten(targetJsonText, (path, type) -> addJsonTargetField(fields, path, type));
+            }
         } catch (Exception ignored) {
+            return FieldCatalog.empty();
         }
-        return fields;
+        return fields.build();
     }
 
-    private void flattenJsonTargetNode(Object node, String path, List<Map<String, Object>> out) {
-        if (node instanceof Map<?, ?> map) {
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = String.valueOf(entry.getKey());
-                String childPath = path.isBlank() ? key : path + "." + key;
-                flattenJsonTargetNode(entry.getValue(), childPath, out);
-            }
-            return;
-        }
-        if (node instanceof List<?> list) {
-            for (int i = 0; i < list.size(); i++) {
-                String childPath = path + "[" + i + "]";
-                flattenJsonTargetNode(list.get(i), childPath, out);
-            }
-            return;
-        }
-
-        Map<String, Object> row = new LinkedHashMap<>();
-        row.put("path", path.isBlank() ? "root" : path);
-        row.put("type", inferType(node));
-        row.put("required", false);
-        row.put("targetArtifactType", "JSON");
-        out.add(row);
+    private void addJsonTargetField(FieldCatalog.Builder fields, String path, String type) {
+        fields.add(path, type).required(false).artifact(null, "JSON");
     }
 
-    private List<Map<String, Object>> parseXmlPayloadTargetFields(String xmlText) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    private FieldCatalog parseXmlPayloadTargetFields(String xmlText, boolean collapseArrays) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
         if (xmlText == null || xmlText.isBlank()) {
-            return fields;
+            return FieldCatalog.empty();
+        }
+        if (collapseArrays) {
+            return parseXmlPayloadTargetFieldsCollapsed(xmlText.trim());
         }
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -311,10 +466,25 @@ public class SchemaParserService {
             }
         } catch (Exception ignored) {
         }
-        return fields;
+        return fields.build();
+    }
+
+    private FieldCatalog parseXmlPayloadTargetFieldsCollapsed(String xmlText) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
+        try {
+            CollapsedFieldAggregator aggregator = new CollapsedFieldAggregator(false);
+            staxXmlFieldFlattener.flatten(xmlText, true, false, path -> aggregator.accept(path, "string"));
+            for (CollapsedField field : aggregator.fields()) {
+                fields.add(field.path(), field.type()).required(false).artifact(null, "XML");
+                putCardinalityStats(fields, field);
+            }
+        } catch (Exception ignored) {
+            return FieldCatalog.empty();
+        }
+        return fields.build();
     }
 
-    private void flattenXmlTargetElement(Element element, String path, List<Map<String, Object>> out) {
+    private void flattenXmlTargetElement(Element element, String path, FieldCatalog.Builder out) {
         NodeList children = element.getChildNodes();
         boolean hasElementChildren = false;
         for (int i = 0; i < children.getLength(); i++) {
@@ -328,24 +498,34 @@ public class SchemaParserService {
         }
 
         if (!hasElementChildren) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("path", path);
-            row.put("type", "string");
-            row.put("required", false);
-            row.put("targetArtifactType", "XML");
-            out.add(row);
+            out.add(path, "string").required(false).artifact(null, "XML");
         }
     }
 
-    private List<Map<String, Object>> parseXmlTargetFields(String xmlSchemaText, String artifactName, String artifactType) {
-        List<Map<String, Object>> fields = new ArrayList<>();
+    private FieldCatalog parseXmlTargetFields(
+            String xmlSchemaText,
+            String artifactName,
+            String artifactType,
+            Map<String, String> uploadedArtifacts
+    ) {
+        FieldCatalog.Builder fields = FieldCatalog.builder();
         if (xmlSchemaText == null || xmlSchemaText.isBlank()) {
-            return fields;
+            return FieldCatalog.empty();
         }
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setNamespaceAware(true);
             Document doc = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xmlSchemaText)));
+            if (xsdHierarchicalPaths) {
+                XsdArtifactResolver.ResolvedSchemas schemas = xsdArtifactResolver.resolve(doc, xmlSchemaText, uploadedArtifacts);
+                for (XsdTypeGraphResolver.XsdLeaf leaf : xsdTypeGraphResolver.resolve(schemas)) {
+                    addXmlTargetField(fields, leaf.path(), normalizeXmlType(leaf.rawType()), leaf.required(), artifactName, artifactType);
+                }
+                if (fields.size() > 0) {
+                    return fields.build();
+                }
+            }
+
             NodeList all = doc.getElementsByTagName("*");
             Set<String> seenPaths = new LinkedHashSet<>();
             for (int i = 0; i < all.getLength(); i++) {
@@ -374,17 +554,40 @@ public class SchemaParserService {
                 String type = normalizeXmlType(rawType);
                 boolean required = !"0".equals(el.getAttribute("minOccurs")) && !"optional".equalsIgnoreCase(el.getAttribute("use"));
 
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("path", path);
-                row.put("type", type);
-                row.put("required", required);
-                row.put("targetArtifactName", artifactName == null || artifactName.isBlank() ? "target.xsd" : artifactName);
-                row.put("targetArtifactType", artifactType == null || artifactType.isBlank() ? "XSD" : artifactType);
-                fields.add(row);
+                addXmlTargetField(fields, path, type, required, artifactName, artifactType);
             }
         } catch (Exception ignored) {
         }
-        return fields;
+        return fields.build();
+    }
+
+    private void addXmlTargetField(
+            FieldCatalog.Builder fields,
+            String path,
+            String type,
+            boolean required,
+            String artifactName,
+            String artifactType
+    ) {
+        fields.add(path, type).required(required).artifact(
+                artifactName == null || artifactName.isBlank() ? "target.xsd" : artifactName,
+                artifactType == null || artifactType.isBlank() ? "XSD" : artifactType
+        );
+    }
+
+    private ParsedArtifact parseXmlTargetArtifact(
+            String xmlSchemaText,
+            String artifactName,
+            String artifactType,
+            Map<String, String> uploadedArtifacts
+    ) {
+        long started = System.nanoTime();
+        FieldCatalog fields = parseXmlTargetFields(xmlSchemaText, artifactName, artifactType, uploadedArtifacts);
+        return new ParsedArtifact(artifactName, artifactType, fields, elapsedMillis(started));
+    }
+
+    private long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000L;
     }
 
     private boolean shouldSkipXmlWrapperTarget(String name, String rawType, Element elementNode) {
@@ -438,19 +641,6 @@ public class SchemaParserService {
         }
     }
 
-    private String inferType(Object node) {
-        if (node == null) {
-            return "null";
-        }
-        if (node instanceof Number) {
-            return "number";
-        }
-        if (node instanceof Boolean) {
-            return "boolean";
-        }
-        return "string";
-    }
-
     private String asString(Object value) {
         return value == null ? "" : String.valueOf(value);
     }
@@ -459,4 +649,15 @@ public class SchemaParserService {
         String str = asString(value).trim();
         return str.isBlank() ? defaultValue : str;
     }
+
+    private record ParsedArtifact(String name, String type, FieldCatalog fields, long parseMillis) {
+        private Map<String, Object> timing() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("artifactName", name);
+            row.put("artifactType", type);
+            row.put("fieldCount", fields.size());
+            row.put("parseMillis", parseMillis);
+            return row;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.salilvnair.mapperstudio.task.service;
 
 import com.github.salilvnair.convengine.engine.session.EngineSession;
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
 import com.salilvnair.mapperstudio.task.model.StudioSessionKeys;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +19,11 @@ public class SessionInputService {
         }
         session.getInputParams().remove(StudioSessionKeys.PARSE_STATUS);
         session.getInputParams().remove(StudioSessionKeys.PARSE_RESULT);
+        session.getInputParams().remove(StudioSessionKeys.PARSE_ARTIFACT_TIMINGS);
+        session.getInputParams().remove(StudioSessionKeys.PARSE_CACHE_HIT);
         session.getInputParams().remove(StudioSessionKeys.SUGGESTION_STATUS);
+        session.getInputParams().remove(StudioSessionKeys.DEFERRED);
+        session.getInputParams().remove(StudioSessionKeys.RETRY_AFTER_MS);
         session.getInputParams().remove(StudioSessionKeys.MAPPING_SUGGESTIONS);
         session.getInputParams().remove(StudioSessionKeys.VALIDATION_STATUS);
         session.getInputParams().remove(StudioSessionKeys.VALIDATION_REPORT);
@@ -70,19 +75,7 @@ public class SessionInputService {
         return out;
     }
 
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> readFieldList(Object raw) {
-        if (raw instanceof List<?> list) {
-            List<Map<String, Object>> out = new ArrayList<>();
-            for (Object item : list) {
-                if (item instanceof Map<?, ?> map) {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    map.forEach((k, v) -> row.put(String.valueOf(k), v));
-                    out.add(row);
-                }
-            }
-            return out;
-        }
-        return List.of();
+    public FieldCatalog readFieldCatalog(Object raw) {
+        return FieldCatalog.fromRows(raw);
     }
 }
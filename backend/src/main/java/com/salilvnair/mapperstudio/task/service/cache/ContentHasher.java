@@ -0,0 +1,55 @@
+package com.salilvnair.mapperstudio.task.service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over a sequence of strings. Every part is length-prefixed and null is distinct from "",
+ * so ("ab", "c") and ("a", "bc") never collide. Characters are fed through a small buffer instead of
+ * encoding the whole string, which keeps hashing multi-megabyte schemas allocation-light.
+ */
+public final class ContentHasher {
+
+    private ContentHasher() {
+    }
+
+    public static String sha256Hex(String... parts) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[16 * 1024];
+        for (String part : parts) {
+            update(digest, part, buffer);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value, byte[] buffer) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        digest.update(Integer.toString(value.length()).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        int chars = buffer.length / 2;
+        for (int from = 0; from < value.length(); from += chars) {
+            int to = Math.min(value.length(), from + chars);
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                char c = value.charAt(i);
+                buffer[n++] = (byte) (c >>> 8);
+                buffer[n++] = (byte) c;
+            }
+            digest.update(buffer, 0, n);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.salilvnair.mapperstudio.task.service.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of parsed field catalogs keyed by a SHA-256 over the parse inputs (artifact contents, names,
+ * target type and parse flags). Weight is the number of fields held, so a few huge schemas cannot pin
+ * the heap. Catalogs are immutable and handed out as-is. An optional SQLite tier (mps_parsed_field_cache)
+ * lets hits survive restarts.
+ */
+@Component
+public class ParsedFieldCache {
+
+    private static final TypeReference<List<Map<String, Object>>> FIELD_LIST = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper mapper;
+    private final LinkedHashMap<String, FieldCatalog> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private final Object sqliteLock = new Object();
+    private long sqliteRows = -1L;
+
+    private final Counter memoryHits;
+    private final Counter sqliteHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Value("${mapper.parser.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.parser.cache.max-fields:200000}")
+    private long maxFields;
+
+    @Value("${mapper.parser.cache.sqlite-enabled:false}")
+    private boolean sqliteEnabled;
+
+    @Value("${mapper.parser.cache.sqlite-max-entries:500}")
+    private int sqliteMaxEntries;
+
+    public ParsedFieldCache(JdbcTemplate jdbcTemplate, ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = mapper;
+        this.memoryHits = meterRegistry.counter("mapper.parser.cache.requests", "result", "hit", "tier", "memory");
+        this.sqliteHits = meterRegistry.counter("mapper.parser.cache.requests", "result", "hit", "tier", "sqlite");
+        this.misses = meterRegistry.counter("mapper.parser.cache.requests", "result", "miss", "tier", "none");
+        this.evictions = meterRegistry.counter("mapper.parser.cache.evictions");
+        Gauge.builder("mapper.parser.cache.fields", this, ParsedFieldCache::weight).register(meterRegistry);
+        Gauge.builder("mapper.parser.cache.entries", this, ParsedFieldCache::size).register(meterRegistry);
+    }
+
+    public String key(String kind, String... parts) {
+        String[] keyed = new String[parts.length + 1];
+        keyed[0] = kind;
+        System.arraycopy(parts, 0, keyed, 1, parts.length);
+        return kind + ":" + ContentHasher.sha256Hex(keyed);
+    }
+
+    public FieldCatalog getOrParse(String key, Supplier<FieldCatalog> parser) {
+        if (!enabled) {
+            return parser.get();
+        }
+
+        FieldCatalog cached = getFromMemory(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return cached;
+        }
+
+        cached = sqliteEnabled ? getFromSqlite(key) : null;
+        if (cached != null) {
+            sqliteHits.increment();
+            putInMemory(key, cached);
+            return cached;
+        }
+
+        misses.increment();
+        FieldCatalog parsed = parser.get();
+        putInMemory(key, parsed);
+        if (sqliteEnabled) {
+            putInSqlite(key, parsed);
+        }
+        return parsed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized FieldCatalog getFromMemory(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void putInMemory(String key, FieldCatalog fields) {
+        long entryWeight = Math.max(1, fields.size());
+        if (entryWeight > maxFields) {
+            return;
+        }
+        FieldCatalog previous = entries.put(key, fields);
+        if (previous != null) {
+            weight -= Math.max(1, previous.size());
+        }
+        weight += entryWeight;
+
+        Iterator<Map.Entry<String, FieldCatalog>> eldest = entries.entrySet().iterator();
+        while (weight > maxFields && eldest.hasNext()) {
+            Map.Entry<String, FieldCatalog> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            weight -= Math.max(1, entry.getValue().size());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private FieldCatalog getFromSqlite(String key) {
+        try {
+            List<String> rows = jdbcTemplate.queryForList(
+                    "select fields_json from mps_parsed_field_cache where cache_key=?",
+                    String.class,
+                    key
+            );
+            if (rows.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update("update mps_parsed_field_cache set last_hit_at=CURRENT_TIMESTAMP where cache_key=?", key);
+            return FieldCatalog.fromRows(mapper.readValue(rows.get(0), FIELD_LIST));
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private void putInSqlite(String key, FieldCatalog fields) {
+        try {
+            int inserted = jdbcTemplate.update(
+                    "insert into mps_parsed_field_cache(cache_key, field_count, fields_json) values (?, ?, ?) on conflict (cache_key) do nothing",
+                    key, fields.size(), mapper.writeValueAsString(fields.toRows())
+            );
+            evictFromSqlite(inserted);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Keeps a running row count (seeded by one {@code count(*)}) and, once it passes {@code sqlite-max-entries},
+     * deletes the least recently used rows down to 90% of the bound in a single statement.
+     */
+    private void evictFromSqlite(int inserted) {
+        synchronized (sqliteLock) {
+            if (sqliteRows < 0L) {
+                sqliteRows = countSqliteRows();
+            } else {
+                sqliteRows += inserted;
+            }
+            long max = Math.max(1, sqliteMaxEntries);
+            if (sqliteRows <= max) {
+                return;
+            }
+            long excess = countSqliteRows() - max * 9L / 10L;
+            if (excess > 0L) {
+                jdbcTemplate.update(
+                        "delete from mps_parsed_field_cache where cache_key in (select cache_key from mps_parsed_field_cache order by coalesce(last_hit_at, created_at) asc limit ?)",
+                        excess
+                );
+            }
+            sqliteRows = countSqliteRows();
+        }
+    }
+
+    private long countSqliteRows() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from mps_parsed_field_cache", Long.class);
+        return count == null ? 0L : count;
+    }
+
+    private synchronized long weight() {
+        return weight;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
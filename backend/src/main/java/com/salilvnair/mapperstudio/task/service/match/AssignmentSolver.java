@@ -0,0 +1,221 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Pairs targets with sources so that the total score over a {@link CandidateGraph} is maximal, instead of letting
+ * an early weak match take a source a later target needed more.
+ * <p>
+ * Uses the forward auction algorithm with epsilon scaling on integer-scaled scores. Every target also has a private
+ * "leave unmapped" option worth 0, so the result is a maximum-weight matching and a target is never forced onto a
+ * source. Scores are scaled by the number of bidders + 1, which makes the last phase (epsilon = 1) exact up to the
+ * 1e-6 rounding of the scores. When {@code mapper.suggestions.assignment.budget-ms} runs out, or the solver is
+ * disabled, the result is greedy over the same candidates: targets in order, each taking its best free source.
+ */
+@Component
+public class AssignmentSolver {
+
+    private static final long SCORE_SCALE = 1_000_000L;
+
+    @Value("${mapper.suggestions.assignment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.suggestions.assignment.candidates-per-target:16}")
+    private int candidatesPerTarget;
+
+    @Value("${mapper.suggestions.assignment.budget-ms:2000}")
+    private long budgetMillis;
+
+    public int candidatesPerTarget() {
+        return Math.max(1, candidatesPerTarget);
+    }
+
+    public Assignment solve(CandidateGraph graph) {
+        if (enabled && graph.edgeCount() > 0) {
+            int[] edges = auction(graph, System.nanoTime() + Math.max(0L, budgetMillis) * 1_000_000L);
+            if (edges != null) {
+                return new Assignment(graph, edges, true);
+            }
+        }
+        return new Assignment(graph, greedy(graph), false);
+    }
+
+    /**
+     * Assigned edge per target (-1 when unmapped), or null if the deadline passed first.
+     * <p>
+     * Runs on the usual symmetric form of the problem so every phase ends with a perfect matching: persons are the
+     * targets plus one copy per source, objects are the sources plus one copy per target. A target can take any of its
+     * candidate sources or its own copy (unmapped, 0); a source copy can take its source (source unused, 0) or the copy
+     * of any target that listed that source (0). This keeps the graph at O(edges).
+     */
+    private int[] auction(CandidateGraph graph, long deadlineNanos) {
+        int targets = graph.targetCount();
+        int sources = graph.sourceCount();
+        int persons = targets + sources;
+        long scale = (long) persons + 1L;
+
+        int[] reverseStart = new int[sources + 1];
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            reverseStart[graph.source(e) + 1]++;
+        }
+        for (int s = 0; s < sources; s++) {
+            reverseStart[s + 1] += reverseStart[s];
+        }
+        int[] reverseTargets = new int[graph.edgeCount()];
+        int[] fill = Arrays.copyOf(reverseStart, sources);
+        for (int t = 0; t < targets; t++) {
+            for (int e = graph.start(t); e < graph.end(t); e++) {
+                reverseTargets[fill[graph.source(e)]++] = t;
+            }
+        }
+
+        int[] personStart = new int[persons + 1];
+        int arcs = 2 * graph.edgeCount() + targets + sources;
+        int[] arcObject = new int[arcs];
+        long[] arcBenefit = new long[arcs];
+        int[] arcEdge = new int[arcs];
+        int a = 0;
+        long maxBenefit = 1L;
+        for (int t = 0; t < targets; t++) {
+            personStart[t] = a;
+            for (int e = graph.start(t); e < graph.end(t); e++) {
+                arcObject[a] = graph.source(e);
+                arcBenefit[a] = Math.max(0L, Math.round(graph.score(e) * SCORE_SCALE)) * scale;
+                arcEdge[a] = e;
+                maxBenefit = Math.max(maxBenefit, arcBenefit[a]);
+                a++;
+            }
+            arcObject[a] = sources + t;
+            arcEdge[a] = -1;
+            a++;
+        }
+        for (int s = 0; s < sources; s++) {
+            personStart[targets + s] = a;
+            arcObject[a] = s;
+            arcEdge[a] = -1;
+            a++;
+            for (int r = reverseStart[s]; r < reverseStart[s + 1]; r++) {
+                arcObject[a] = sources + reverseTargets[r];
+                arcEdge[a] = -1;
+                a++;
+            }
+        }
+        personStart[persons] = a;
+
+        long[] price = new long[persons];
+        int[] owner = new int[persons];
+        int[] assignedArc = new int[persons];
+        int[] queue = new int[persons];
+        long bids = 0L;
+        long epsilon = Math.max(1L, maxBenefit / 8L);
+
+        while (true) {
+            Arrays.fill(owner, -1);
+            Arrays.fill(assignedArc, -1);
+            for (int p = 0; p < persons; p++) {
+                queue[p] = p;
+            }
+            int head = 0;
+            int queued = persons;
+
+            while (queued > 0) {
+                if ((++bids & 1023L) == 0L && System.nanoTime() > deadlineNanos) {
+                    return null;
+                }
+                int person = queue[head];
+                head = (head + 1) % persons;
+                queued--;
+
+                long bestValue = Long.MIN_VALUE;
+                long secondValue = Long.MIN_VALUE;
+                int bestArc = -1;
+                for (int arc = personStart[person]; arc < personStart[person + 1]; arc++) {
+                    long value = arcBenefit[arc] - price[arcObject[arc]];
+                    if (value > bestValue) {
+                        secondValue = bestValue;
+                        bestValue = value;
+                        bestArc = arc;
+                    } else if (value > secondValue) {
+                        secondValue = value;
+                    }
+                }
+                if (secondValue == Long.MIN_VALUE) {
+                    secondValue = bestValue;
+                }
+
+                int object = arcObject[bestArc];
+                price[object] += bestValue - secondValue + epsilon;
+                int previous = owner[object];
+                if (previous >= 0) {
+                    assignedArc[previous] = -1;
+                    queue[(head + queued) % persons] = previous;
+                    queued++;
+                }
+                owner[object] = person;
+                assignedArc[person] = bestArc;
+            }
+
+            if (epsilon == 1L) {
+                break;
+            }
+            epsilon = Math.max(1L, epsilon / 5L);
+        }
+
+        int[] assignedEdge = new int[targets];
+        for (int t = 0; t < targets; t++) {
+            assignedEdge[t] = arcEdge[assignedArc[t]];
+        }
+        return assignedEdge;
+    }
+
+    private int[] greedy(CandidateGraph graph) {
+        boolean[] used = new boolean[graph.sourceCount()];
+        int[] assignedEdge = new int[graph.targetCount()];
+        for (int t = 0; t < graph.targetCount(); t++) {
+            assignedEdge[t] = -1;
+            for (int e = graph.start(t); e < graph.end(t); e++) {
+                if (!used[graph.source(e)]) {
+                    used[graph.source(e)] = true;
+                    assignedEdge[t] = e;
+                    break;
+                }
+            }
+        }
+        return assignedEdge;
+    }
+
+    /**
+     * Result of {@link #solve}; {@code optimal} is false when the greedy fallback was used.
+     */
+    public static final class Assignment {
+        private final CandidateGraph graph;
+        private final int[] edgeByTarget;
+        private final boolean optimal;
+
+        private Assignment(CandidateGraph graph, int[] edgeByTarget, boolean optimal) {
+            this.graph = graph;
+            this.edgeByTarget = edgeByTarget;
+            this.optimal = optimal;
+        }
+
+        /**
+         * Source id assigned to {@code target}, or -1.
+         */
+        public int source(int target) {
+            int edge = edgeByTarget[target];
+            return edge < 0 ? -1 : graph.source(edge);
+        }
+
+        public double score(int target) {
+            int edge = edgeByTarget[target];
+            return edge < 0 ? 0d : graph.score(edge);
+        }
+
+        public boolean optimal() {
+            return optimal;
+        }
+    }
+}
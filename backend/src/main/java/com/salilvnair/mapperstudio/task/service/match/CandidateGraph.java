@@ -0,0 +1,139 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import java.util.Arrays;
+
+/**
+ * Sparse target -> source score matrix in CSR form. Each target keeps only its best {@code limit} sources, ordered by
+ * score (highest first, lower source id on ties), which is all {@link AssignmentSolver} looks at.
+ */
+public final class CandidateGraph {
+
+    private final int targetCount;
+    private final int sourceCount;
+    private final int[] start;
+    private final int[] sources;
+    private final double[] scores;
+
+    private CandidateGraph(Builder b) {
+        b.flush();
+        this.targetCount = b.targetCount;
+        this.sourceCount = b.sourceCount;
+        this.start = b.start;
+        for (int t = b.current + 1; t <= targetCount; t++) {
+            start[t] = b.edges;
+        }
+        this.sources = Arrays.copyOf(b.sources, b.edges);
+        this.scores = Arrays.copyOf(b.scores, b.edges);
+    }
+
+    public static Builder builder(int targetCount, int sourceCount, int limit) {
+        return new Builder(targetCount, sourceCount, limit);
+    }
+
+    public int targetCount() {
+        return targetCount;
+    }
+
+    public int sourceCount() {
+        return sourceCount;
+    }
+
+    public int edgeCount() {
+        return sources.length;
+    }
+
+    /**
+     * Edges of target {@code t} are {@code start(t)} (inclusive) to {@code end(t)} (exclusive).
+     */
+    public int start(int t) {
+        return start[t];
+    }
+
+    public int end(int t) {
+        return start[t + 1];
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public double score(int edge) {
+        return scores[edge];
+    }
+
+    public static final class Builder {
+        private final int targetCount;
+        private final int sourceCount;
+        private final int limit;
+        private final int[] start;
+        private int[] sources = new int[256];
+        private double[] scores = new double[256];
+        private int edges;
+        private int current = -1;
+        private final int[] topSources;
+        private final double[] topScores;
+        private int topCount;
+
+        private Builder(int targetCount, int sourceCount, int limit) {
+            this.targetCount = targetCount;
+            this.sourceCount = sourceCount;
+            this.limit = Math.max(1, limit);
+            this.start = new int[targetCount + 1];
+            this.topSources = new int[this.limit];
+            this.topScores = new double[this.limit];
+        }
+
+        /**
+         * Offers an edge; targets must be offered in non-decreasing order.
+         */
+        public Builder offer(int target, int source, double score) {
+            if (target != current) {
+                if (target < current) {
+                    throw new IllegalArgumentException("targets must be offered in order");
+                }
+                flush();
+                for (int t = current + 1; t <= target; t++) {
+                    start[t] = edges;
+                }
+                current = target;
+            }
+            int at = topCount;
+            while (at > 0 && better(score, source, topScores[at - 1], topSources[at - 1])) {
+                at--;
+            }
+            if (at >= limit) {
+                return this;
+            }
+            int last = Math.min(topCount, limit - 1);
+            System.arraycopy(topSources, at, topSources, at + 1, last - at);
+            System.arraycopy(topScores, at, topScores, at + 1, last - at);
+            topSources[at] = source;
+            topScores[at] = score;
+            topCount = Math.min(topCount + 1, limit);
+            return this;
+        }
+
+        public CandidateGraph build() {
+            return new CandidateGraph(this);
+        }
+
+        private void flush() {
+            if (topCount == 0) {
+                return;
+            }
+            if (edges + topCount > sources.length) {
+                int capacity = Math.max(sources.length * 2, edges + topCount);
+                sources = Arrays.copyOf(sources, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            System.arraycopy(topSources, 0, sources, edges, topCount);
+            System.arraycopy(topScores, 0, scores, edges, topCount);
+            edges += topCount;
+            topCount = 0;
+        }
+
+        private static boolean better(double score, int source, double otherScore, int otherSource) {
+            return score > otherScore || (score == otherScore && source < otherSource);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import com.salilvnair.mapperstudio.llm.embedding.VectorMath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Inverted-file index over source embeddings, scored by cosine (vectors are unit-normalized on build, so a dot
+ * product). Spherical k-means splits the vectors into lists; a query scores the centroids, scans the vectors of the
+ * closest {@code probes} lists, and keeps probing while the filter has left fewer than {@code k} hits.
+ * <p>
+ * Each list's vectors are stored contiguously, and {@link #load} serves them straight from a memory-mapped file
+ * written by {@link #save}. Search keeps per-query scratch in the instance and is not thread-safe.
+ */
+public final class IvfIndex {
+
+    private static final long MAGIC = 0x4d5349564630314cL;
+    private static final int HEADER_BYTES = 64;
+    private static final int TRAINING_ROWS_PER_LIST = 64;
+    private static final int ITERATIONS = 8;
+
+    private final int size;
+    private final int dim;
+    private final int lists;
+    private final float[] centroids;
+    private final int[] listStart;
+    private final int[] rowIds;
+    private final FloatBuffer vectors;
+    private final float[] heapVectors;
+
+    private final float[] queryVector;
+    private final float[] centroidScores;
+    private final int[] probeOrder;
+    private final float[] listScores;
+    private final float[] listVectors;
+    private int[] topRows = new int[16];
+    private float[] topScores = new float[16];
+
+    private IvfIndex(int size, int dim, int lists, float[] centroids, int[] listStart, int[] rowIds, FloatBuffer vectors) {
+        this.size = size;
+        this.dim = dim;
+        this.lists = lists;
+        this.centroids = centroids;
+        this.listStart = listStart;
+        this.rowIds = rowIds;
+        this.vectors = vectors;
+        this.heapVectors = vectors.hasArray() && vectors.arrayOffset() == 0 ? vectors.array() : null;
+        this.queryVector = new float[dim];
+        this.centroidScores = new float[lists];
+        this.probeOrder = new int[lists];
+        int longestList = 0;
+        for (int list = 0; list < lists; list++) {
+            longestList = Math.max(longestList, listStart[list + 1] - listStart[list]);
+        }
+        this.listScores = new float[longestList];
+        this.listVectors = heapVectors == null ? new float[longestList * dim] : null;
+    }
+
+    /**
+     * Builds {@code lists} lists over {@code rows}; a row that is empty or not {@code dim} long is indexed as a zero
+     * vector and never scores above 0. The seed makes the index (and a persisted file) reproducible.
+     */
+    public static IvfIndex build(float[][] rows, int dim, int lists, long seed) {
+        int size = rows.length;
+        int listCount = Math.max(1, Math.min(lists, size));
+        float[] data = new float[size * dim];
+        for (int i = 0; i < size; i++) {
+            normalizeInto(rows[i], dim, data, i * dim);
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] training = sample(size, Math.min(size, listCount * TRAINING_ROWS_PER_LIST), random);
+        float[] centroids = new float[listCount * dim];
+        for (int c = 0; c < listCount; c++) {
+            System.arraycopy(data, training[c % training.length] * dim, centroids, c * dim, dim);
+        }
+        int[] assignment = new int[training.length];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            for (int t = 0; t < training.length; t++) {
+                assignment[t] = nearest(centroids, listCount, data, training[t] * dim, dim);
+            }
+            float[] sums = new float[listCount * dim];
+            int[] counts = new int[listCount];
+            for (int t = 0; t < training.length; t++) {
+                int c = assignment[t];
+                counts[c]++;
+                int base = training[t] * dim;
+                for (int d = 0; d < dim; d++) {
+                    sums[c * dim + d] += data[base + d];
+                }
+            }
+            for (int c = 0; c < listCount; c++) {
+                if (counts[c] == 0) {
+                    System.arraycopy(data, training[random.nextInt(training.length)] * dim, sums, c * dim, dim);
+                }
+                normalizeInPlace(sums, c * dim, dim);
+            }
+            centroids = sums;
+        }
+
+        int[] listOf = new int[size];
+        int[] listStart = new int[listCount + 1];
+        for (int i = 0; i < size; i++) {
+            listOf[i] = nearest(centroids, listCount, data, i * dim, dim);
+            listStart[listOf[i] + 1]++;
+        }
+        for (int c = 0; c < listCount; c++) {
+            listStart[c + 1] += listStart[c];
+        }
+        int[] fill = Arrays.copyOf(listStart, listCount);
+        int[] rowIds = new int[size];
+        float[] ordered = new float[size * dim];
+        for (int i = 0; i < size; i++) {
+            int position = fill[listOf[i]]++;
+            rowIds[position] = i;
+            System.arraycopy(data, i * dim, ordered, position * dim, dim);
+        }
+        return new IvfIndex(size, dim, listCount, centroids, listStart, rowIds, FloatBuffer.wrap(ordered));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dim() {
+        return dim;
+    }
+
+    public int lists() {
+        return lists;
+    }
+
+    /**
+     * Writes the index to {@code file} in the little-endian layout {@link #load} maps. The bytes go to a uniquely named
+     * temp file in the same directory, which is then moved over {@code file}, so concurrent saves never share a temp
+     * file and readers only ever see a complete index.
+     */
+    public void save(Path file) throws IOException {
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            write(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void write(Path tmp) throws IOException {
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putInt(size).putInt(dim).putInt(lists);
+            header.clear();
+            writeFully(channel, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (float value : centroids) {
+                chunk = flushIfFull(channel, chunk, Float.BYTES).putFloat(value);
+            }
+            for (int value : listStart) {
+                chunk = flushIfFull(channel, chunk, Integer.BYTES).putInt(value);
+            }
+            for (int value : rowIds) {
+                chunk = flushIfFull(channel, chunk, Integer.BYTES).putInt(value);
+            }
+            for (int i = 0; i < size * dim; i++) {
+                chunk = flushIfFull(channel, chunk, Float.BYTES).putFloat(vectors.get(i));
+            }
+            chunk.flip();
+            writeFully(channel, chunk);
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #save}; the vectors are read from the mapping, not copied. Returns null if the
+     * file is not a compatible index.
+     */
+    public static IvfIndex load(Path file, int expectedDim) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getLong(0) != MAGIC) {
+                return null;
+            }
+            int size = mapped.getInt(8);
+            int dim = mapped.getInt(12);
+            int lists = mapped.getInt(16);
+            if (dim != expectedDim || lists <= 0) {
+                return null;
+            }
+            long centroidBytes = (long) lists * dim * Float.BYTES;
+            long startBytes = (long) (lists + 1) * Integer.BYTES;
+            long rowBytes = (long) size * Integer.BYTES;
+            long vectorBytes = (long) size * dim * Float.BYTES;
+            if (HEADER_BYTES + centroidBytes + startBytes + rowBytes + vectorBytes != channel.size()) {
+                return null;
+            }
+
+            long offset = HEADER_BYTES;
+            float[] centroids = new float[lists * dim];
+            slice(mapped, offset, centroidBytes).asFloatBuffer().get(centroids);
+            offset += centroidBytes;
+            int[] listStart = new int[lists + 1];
+            slice(mapped, offset, startBytes).asIntBuffer().get(listStart);
+            offset += startBytes;
+            int[] rowIds = new int[size];
+            slice(mapped, offset, rowBytes).asIntBuffer().get(rowIds);
+            offset += rowBytes;
+            FloatBuffer vectors = slice(mapped, offset, vectorBytes).asFloatBuffer();
+            return new IvfIndex(size, dim, lists, centroids, listStart, rowIds, vectors);
+        }
+    }
+
+    /**
+     * Fills {@code ids}/{@code scores} with up to {@code k} of the closest rows allowed by {@code allowed}
+     * (null = all), best first (lower row on ties), and returns how many were found.
+     */
+    public int search(float[] query, int k, int probes, BitSet allowed, int[] ids, float[] scores) {
+        if (size == 0 || query == null || query.length != dim || k <= 0) {
+            return 0;
+        }
+        float[] q = queryVector;
+        if (!normalizeInto(query, dim, q, 0)) {
+            return 0;
+        }
+        if (topRows.length < k) {
+            topRows = new int[k];
+            topScores = new float[k];
+        }
+
+        VectorMath.dotMany(q, centroids, 0, lists, dim, centroidScores);
+        for (int c = 0; c < lists; c++) {
+            probeOrder[c] = c;
+        }
+        int found = 0;
+        int minProbes = Math.max(1, Math.min(probes, lists));
+        for (int p = 0; p < lists && (p < minProbes || found < k); p++) {
+            int best = p;
+            for (int c = p + 1; c < lists; c++) {
+                if (centroidScores[probeOrder[c]] > centroidScores[probeOrder[best]]) {
+                    best = c;
+                }
+            }
+            int list = probeOrder[best];
+            probeOrder[best] = probeOrder[p];
+            probeOrder[p] = list;
+
+            scoreList(q, list);
+            for (int position = listStart[list]; position < listStart[list + 1]; position++) {
+                int row = rowIds[position];
+                if (allowed != null && !allowed.get(row)) {
+                    continue;
+                }
+                float score = listScores[position - listStart[list]];
+                int at = found;
+                while (at > 0 && (score > topScores[at - 1] || (score == topScores[at - 1] && row < topRows[at - 1]))) {
+                    at--;
+                }
+                if (at >= k) {
+                    continue;
+                }
+                int last = Math.min(found, k - 1);
+                System.arraycopy(topRows, at, topRows, at + 1, last - at);
+                System.arraycopy(topScores, at, topScores, at + 1, last - at);
+                topRows[at] = row;
+                topScores[at] = score;
+                found = Math.min(found + 1, k);
+            }
+        }
+        System.arraycopy(topRows, 0, ids, 0, found);
+        System.arraycopy(topScores, 0, scores, 0, found);
+        return found;
+    }
+
+    /**
+     * Scores every row of {@code list} into {@code listScores}; mapped lists are copied out in one bulk read first so
+     * heap and mapped indexes score identically.
+     */
+    private void scoreList(float[] q, int list) {
+        int start = listStart[list];
+        int count = listStart[list + 1] - start;
+        if (heapVectors != null) {
+            VectorMath.dotMany(q, heapVectors, start * dim, count, dim, listScores);
+            return;
+        }
+        vectors.get(start * dim, listVectors, 0, count * dim);
+        VectorMath.dotMany(q, listVectors, 0, count, dim, listScores);
+    }
+
+    private static int nearest(float[] centroids, int listCount, float[] data, int offset, int dim) {
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < listCount; c++) {
+            float score = VectorMath.dot(data, offset, centroids, c * dim, dim);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static int[] sample(int size, int count, SplittableRandom random) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(size - i);
+            int swap = rows[i];
+            rows[i] = rows[j];
+            rows[j] = swap;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private static boolean normalizeInto(float[] row, int dim, float[] out, int offset) {
+        if (row == null || row.length != dim) {
+            return false;
+        }
+        return VectorMath.normalizeInto(row, out, offset);
+    }
+
+    private static void normalizeInPlace(float[] values, int offset, int dim) {
+        double norm = 0d;
+        for (int d = 0; d < dim; d++) {
+            norm += (double) values[offset + d] * values[offset + d];
+        }
+        if (norm == 0d) {
+            return;
+        }
+        float inv = (float) (1d / Math.sqrt(norm));
+        for (int d = 0; d < dim; d++) {
+            values[offset + d] *= inv;
+        }
+    }
+
+    private static ByteBuffer slice(MappedByteBuffer mapped, long offset, long length) {
+        return mapped.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer chunk, int needed) throws IOException {
+        if (chunk.remaining() < needed) {
+            chunk.flip();
+            writeFully(channel, chunk);
+            chunk.clear();
+        }
+        return chunk;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import com.salilvnair.mapperstudio.task.model.FieldCatalog;
+import com.salilvnair.mapperstudio.task.model.PathTrie;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Inverted index from path token id (and leaf-name id) to the distinct source paths that contain it, so a target
+ * only scores the sources it shares something with instead of every source field. Scoring is the share of the
+ * target's tokens found in the source plus {@link #LEAF_BONUS} when both end in the same leaf name.
+ * <p>
+ * Sources are ranked by first appearance in the catalog. Postings are one CSR array pair, and
+ * {@link #offerCandidates} accumulates overlaps in reusable int arrays stamped per query, so the hot loop does not
+ * allocate. An instance is built per suggestion run and is not thread-safe.
+ */
+public final class LexicalSourceIndex {
+
+    public static final double LEAF_BONUS = 0.35d;
+
+    /**
+     * Scores below this are never used by the matcher, so sources that cannot reach it need not be scored exactly.
+     */
+    public static final double MIN_USEFUL_SCORE = 0.35d;
+
+    private final PathTrie paths;
+    private final int[] nodes;
+    private final int[] tokenCounts;
+    private final int[] leafIds;
+    private final int[] tokenSlot;
+    private final int[] tokenStart;
+    private final int[] tokenPostings;
+    private final int[] leafSlot;
+    private final int[] leafStart;
+    private final int[] leafPostings;
+
+    private final int[] overlap;
+    private final int[] stamp;
+    private final int[] touched;
+    private final int commonTokenPostings;
+    private int[] commonScratch = new int[16];
+    private int[] topRanks = new int[16];
+    private double[] topScores = new double[16];
+    private int query;
+
+    public LexicalSourceIndex(FieldCatalog sources) {
+        this.paths = sources.paths();
+        BitSet seen = new BitSet(paths.size());
+        int[] ordered = new int[sources.size()];
+        int count = 0;
+        int maxId = -1;
+        for (int i = 0; i < sources.size(); i++) {
+            int node = sources.pathNode(i);
+            if (node == PathTrie.ROOT || seen.get(node)) {
+                continue;
+            }
+            seen.set(node);
+            ordered[count++] = node;
+            for (int token : paths.tokens(node)) {
+                maxId = Math.max(maxId, token);
+            }
+            maxId = Math.max(maxId, paths.leafId(node));
+        }
+        this.nodes = Arrays.copyOf(ordered, count);
+        this.tokenCounts = new int[count];
+        this.leafIds = new int[count];
+        for (int rank = 0; rank < count; rank++) {
+            tokenCounts[rank] = paths.tokens(nodes[rank]).length;
+            leafIds[rank] = paths.leafId(nodes[rank]);
+        }
+
+        int[] tokenFrequency = new int[maxId + 1];
+        int[] leafFrequency = new int[maxId + 1];
+        for (int rank = 0; rank < count; rank++) {
+            for (int token : paths.tokens(nodes[rank])) {
+                tokenFrequency[token]++;
+            }
+            if (leafIds[rank] >= 0) {
+                leafFrequency[leafIds[rank]]++;
+            }
+        }
+        this.tokenSlot = new int[maxId + 1];
+        this.leafSlot = new int[maxId + 1];
+        this.tokenStart = offsets(tokenFrequency, tokenSlot);
+        this.leafStart = offsets(leafFrequency, leafSlot);
+        this.tokenPostings = new int[tokenStart[tokenStart.length - 1]];
+        this.leafPostings = new int[leafStart[leafStart.length - 1]];
+        int[] tokenFill = Arrays.copyOf(tokenStart, tokenStart.length);
+        int[] leafFill = Arrays.copyOf(leafStart, leafStart.length);
+        for (int rank = 0; rank < count; rank++) {
+            for (int token : paths.tokens(nodes[rank])) {
+                tokenPostings[tokenFill[tokenSlot[token]]++] = rank;
+            }
+            if (leafIds[rank] >= 0) {
+                leafPostings[leafFill[leafSlot[leafIds[rank]]]++] = rank;
+            }
+        }
+
+        this.overlap = new int[count];
+        this.stamp = new int[count];
+        this.touched = new int[count];
+        this.commonTokenPostings = Math.max(64, count / 32);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Trie node (in the source catalog's {@link FieldCatalog#paths()}) of source {@code rank}.
+     */
+    public int node(int rank) {
+        return nodes[rank];
+    }
+
+    public PathTrie paths() {
+        return paths;
+    }
+
+    /**
+     * Offers {@code graph} the best {@code limit} sources for {@code target} that score at least
+     * {@link #MIN_USEFUL_SCORE} (highest first, earliest rank on ties) and returns how many were offered.
+     * <p>
+     * Tokens carried by most sources (a shared {@code Envelope.Body} prefix) are not walked: candidates come from the
+     * rarer tokens and the leaf name, and common tokens are checked per candidate. A source reached only through
+     * common tokens scores at most {@code common / targetTokens}; only when that bound could still make the cut is the
+     * query repeated over every posting list.
+     */
+    public int offerCandidates(int target, int[] targetTokens, int targetLeaf, int limit, CandidateGraph.Builder graph) {
+        if (targetTokens.length == 0 || nodes.length == 0) {
+            return 0;
+        }
+        if (commonScratch.length < targetTokens.length) {
+            commonScratch = new int[targetTokens.length];
+        }
+        if (topRanks.length < limit) {
+            topRanks = new int[limit];
+            topScores = new double[limit];
+        }
+        int commonCount = 0;
+        int touchedCount = beginQuery();
+        for (int token : targetTokens) {
+            int slot = token < tokenSlot.length ? tokenSlot[token] : -1;
+            if (slot < 0) {
+                continue;
+            }
+            if (tokenStart[slot + 1] - tokenStart[slot] > commonTokenPostings) {
+                commonScratch[commonCount++] = token;
+            } else {
+                touchedCount = countPostings(slot, touchedCount);
+            }
+        }
+        touchedCount = touchLeaf(targetLeaf, touchedCount);
+        int found = selectTop(touchedCount, commonCount, targetTokens.length, targetLeaf, limit);
+
+        double untouchedBound = (double) commonCount / (double) targetTokens.length;
+        if (commonCount > 0 && untouchedBound >= MIN_USEFUL_SCORE && (found < limit || untouchedBound >= topScores[found - 1])) {
+            touchedCount = beginQuery();
+            for (int token : targetTokens) {
+                int slot = token < tokenSlot.length ? tokenSlot[token] : -1;
+                if (slot >= 0) {
+                    touchedCount = countPostings(slot, touchedCount);
+                }
+            }
+            touchedCount = touchLeaf(targetLeaf, touchedCount);
+            found = selectTop(touchedCount, 0, targetTokens.length, targetLeaf, limit);
+        }
+
+        for (int k = 0; k < found; k++) {
+            graph.offer(target, topRanks[k], topScores[k]);
+        }
+        return found;
+    }
+
+    private int selectTop(int touchedCount, int commonCount, int targetTokenCount, int targetLeaf, int limit) {
+        int found = 0;
+        for (int k = 0; k < touchedCount; k++) {
+            int rank = touched[k];
+            if (tokenCounts[rank] == 0) {
+                continue;
+            }
+            int shared = overlap[rank];
+            if (commonCount > 0) {
+                int[] sourceTokens = paths.tokens(nodes[rank]);
+                for (int c = 0; c < commonCount; c++) {
+                    if (Arrays.binarySearch(sourceTokens, commonScratch[c]) >= 0) {
+                        shared++;
+                    }
+                }
+            }
+            double score = (double) shared / (double) targetTokenCount + (leafIds[rank] == targetLeaf ? LEAF_BONUS : 0d);
+            if (score < MIN_USEFUL_SCORE) {
+                continue;
+            }
+            int at = found;
+            while (at > 0 && (score > topScores[at - 1] || (score == topScores[at - 1] && rank < topRanks[at - 1]))) {
+                at--;
+            }
+            if (at >= limit) {
+                continue;
+            }
+            int last = Math.min(found, limit - 1);
+            System.arraycopy(topRanks, at, topRanks, at + 1, last - at);
+            System.arraycopy(topScores, at, topScores, at + 1, last - at);
+            topRanks[at] = rank;
+            topScores[at] = score;
+            found = Math.min(found + 1, limit);
+        }
+        return found;
+    }
+
+    private int beginQuery() {
+        query++;
+        return 0;
+    }
+
+    private int countPostings(int slot, int touchedCount) {
+        for (int p = tokenStart[slot]; p < tokenStart[slot + 1]; p++) {
+            int rank = tokenPostings[p];
+            if (stamp[rank] != query) {
+                stamp[rank] = query;
+                overlap[rank] = 0;
+                touched[touchedCount++] = rank;
+            }
+            overlap[rank]++;
+        }
+        return touchedCount;
+    }
+
+    private int touchLeaf(int targetLeaf, int touchedCount) {
+        if (targetLeaf < 0 || targetLeaf >= leafSlot.length || leafSlot[targetLeaf] < 0) {
+            return touchedCount;
+        }
+        int slot = leafSlot[targetLeaf];
+        for (int p = leafStart[slot]; p < leafStart[slot + 1]; p++) {
+            int rank = leafPostings[p];
+            if (stamp[rank] != query) {
+                stamp[rank] = query;
+                overlap[rank] = 0;
+                touched[touchedCount++] = rank;
+            }
+        }
+        return touchedCount;
+    }
+
+    public boolean leafMatches(int rank, int targetLeaf) {
+        return leafIds[rank] == targetLeaf;
+    }
+
+    private static int[] offsets(int[] frequency, int[] slot) {
+        int slots = 0;
+        for (int id = 0; id < frequency.length; id++) {
+            slot[id] = frequency[id] > 0 ? slots++ : -1;
+        }
+        int[] start = new int[slots + 1];
+        for (int id = 0; id < frequency.length; id++) {
+            if (slot[id] >= 0) {
+                start[slot[id] + 1] = start[slot[id]] + frequency[id];
+            }
+        }
+        return start;
+    }
+}
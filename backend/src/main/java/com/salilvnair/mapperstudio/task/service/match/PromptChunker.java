@@ -0,0 +1,85 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packs targets into prompt chunks that each stay under a token budget. A chunk carries its targets plus the union of
+ * their shortlisted sources, so targets are taken in order (siblings usually share sources) and a chunk is closed when
+ * the next target, with the sources it adds, would not fit or the chunk already has {@code maxTargets}. A target whose
+ * shortlist alone is over budget keeps its best sources up to the budget.
+ */
+public final class PromptChunker {
+
+    public record Chunk(int[] targets, int[] sources) {
+    }
+
+    private PromptChunker() {
+    }
+
+    /**
+     * @param targets      target ids in prompt order
+     * @param shortlists   per target id, source ids best first
+     * @param targetTokens estimated tokens per target id
+     * @param sourceTokens estimated tokens per source id
+     * @param baseTokens   tokens every call pays (hint, schema, instructions)
+     */
+    public static List<Chunk> plan(
+            int[] targets,
+            int[][] shortlists,
+            int[] targetTokens,
+            int[] sourceTokens,
+            int baseTokens,
+            int budget,
+            int maxTargets
+    ) {
+        List<Chunk> chunks = new ArrayList<>();
+        int[] inChunk = new int[sourceTokens.length];
+        int chunkId = 1;
+        int[] chunkTargets = new int[Math.max(1, maxTargets)];
+        int targetCount = 0;
+        int[] chunkSources = new int[16];
+        int sourceCount = 0;
+        int used = baseTokens;
+
+        for (int target : targets) {
+            int[] shortlist = shortlists[target];
+            int added = targetTokens[target];
+            for (int source : shortlist) {
+                if (inChunk[source] != chunkId) {
+                    added += sourceTokens[source];
+                }
+            }
+            if (targetCount > 0 && (targetCount == chunkTargets.length || used + added > budget)) {
+                chunks.add(new Chunk(Arrays.copyOf(chunkTargets, targetCount), Arrays.copyOf(chunkSources, sourceCount)));
+                chunkId++;
+                targetCount = 0;
+                sourceCount = 0;
+                used = baseTokens;
+            }
+
+            chunkTargets[targetCount++] = target;
+            used += targetTokens[target];
+            for (int source : shortlist) {
+                if (inChunk[source] == chunkId) {
+                    continue;
+                }
+                // only reachable for the first target of a chunk: later targets were checked against the budget above
+                if (sourceCount > 0 && used + sourceTokens[source] > budget) {
+                    break;
+                }
+                inChunk[source] = chunkId;
+                if (sourceCount == chunkSources.length) {
+                    chunkSources = Arrays.copyOf(chunkSources, sourceCount * 2);
+                }
+                chunkSources[sourceCount++] = source;
+                used += sourceTokens[source];
+            }
+        }
+        if (targetCount > 0) {
+            chunks.add(new Chunk(Arrays.copyOf(chunkTargets, targetCount), Arrays.copyOf(chunkSources, sourceCount)));
+        }
+        return chunks;
+    }
+}
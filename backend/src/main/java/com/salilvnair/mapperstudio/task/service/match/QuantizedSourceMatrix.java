@@ -0,0 +1,92 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import com.salilvnair.mapperstudio.llm.embedding.QuantizedVector;
+import com.salilvnair.mapperstudio.llm.embedding.VectorMath;
+
+/**
+ * int8 copy of a run's source embeddings for the linear scan: one byte per dimension plus a scale per row, a quarter
+ * of the float matrix. {@link #shortlist} ranks every row by the approximate cosine; callers re-score the shortlist
+ * against the float vectors, which takes the query's own rounding out of the score. Keeps per-query scratch in the
+ * instance and is not thread-safe.
+ */
+public final class QuantizedSourceMatrix {
+
+    private final int size;
+    private final int dim;
+    private final byte[] values;
+    private final float[] scales;
+
+    private final int[] dots;
+    private final byte[] query;
+    private int[] topPositions = new int[16];
+    private float[] topScores = new float[16];
+
+    private QuantizedSourceMatrix(int size, int dim, byte[] values, float[] scales) {
+        this.size = size;
+        this.dim = dim;
+        this.values = values;
+        this.scales = scales;
+        this.dots = new int[size];
+        this.query = new byte[dim];
+    }
+
+    /**
+     * Quantizes {@code vectors[rows[p]]} into position {@code p}; a vector that is empty or not {@code dim} long gets
+     * scale 0 and never scores above 0.
+     */
+    public static QuantizedSourceMatrix build(float[][] vectors, int[] rows, int dim) {
+        byte[] values = new byte[rows.length * dim];
+        float[] scales = new float[rows.length];
+        for (int p = 0; p < rows.length; p++) {
+            float[] unit = VectorMath.normalize(vectors[rows[p]]);
+            if (unit.length == dim) {
+                scales[p] = QuantizedVector.quantizeInto(unit, values, p * dim);
+            }
+        }
+        return new QuantizedSourceMatrix(rows.length, dim, values, scales);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Fills {@code positions}/{@code scores} with up to {@code k} positions with the highest approximate cosine to
+     * the unit vector {@code unitQuery}, best first (lower position on ties), and returns how many were found.
+     */
+    public int shortlist(float[] unitQuery, int k, int[] positions, float[] scores) {
+        if (size == 0 || unitQuery == null || unitQuery.length != dim || k <= 0) {
+            return 0;
+        }
+        float queryScale = QuantizedVector.quantizeInto(unitQuery, query, 0);
+        if (queryScale == 0f) {
+            return 0;
+        }
+        if (topPositions.length < k) {
+            topPositions = new int[k];
+            topScores = new float[k];
+        }
+        VectorMath.dotManyInt8(query, values, 0, size, dim, dots);
+
+        int found = 0;
+        for (int p = 0; p < size; p++) {
+            float score = dots[p] * queryScale * scales[p];
+            if (found == k && score <= topScores[k - 1]) {
+                continue;
+            }
+            int at = found;
+            while (at > 0 && score > topScores[at - 1]) {
+                at--;
+            }
+            int last = Math.min(found, k - 1);
+            System.arraycopy(topPositions, at, topPositions, at + 1, last - at);
+            System.arraycopy(topScores, at, topScores, at + 1, last - at);
+            topPositions[at] = p;
+            topScores[at] = score;
+            found = Math.min(found + 1, k);
+        }
+        System.arraycopy(topPositions, 0, positions, 0, found);
+        System.arraycopy(topScores, 0, scores, 0, found);
+        return found;
+    }
+}
@@ -0,0 +1,164 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Hands out an {@link IvfIndex} over a run's source embeddings, or null when a linear scan is the better choice
+ * (index disabled, or fewer than {@code min-sources} vectors). With {@code persist-dir} set, the index is saved under
+ * a SHA-256 of the vectors and list count and memory-mapped on the next run with the same sources; only the
+ * {@code persist-max-files} most recently used index files are kept.
+ */
+@Component
+public class VectorIndexProvider {
+
+    private static final long SEED = 42L;
+    private static final String FILE_PREFIX = "ivf-";
+    private static final String FILE_SUFFIX = ".idx";
+
+    @Value("${mapper.suggestions.embedding-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mapper.suggestions.embedding-index.min-sources:2000}")
+    private int minSources;
+
+    @Value("${mapper.suggestions.embedding-index.lists:0}")
+    private int lists;
+
+    @Value("${mapper.suggestions.embedding-index.probes:12}")
+    private int probes;
+
+    @Value("${mapper.suggestions.embedding-index.persist-dir:}")
+    private String persistDir;
+
+    @Value("${mapper.suggestions.embedding-index.persist-max-files:32}")
+    private int persistMaxFiles;
+
+    public int probes() {
+        return Math.max(1, probes);
+    }
+
+    /**
+     * True when indexes are reused across runs; callers should then index every source and filter used ones at
+     * query time, so the index does not depend on which sources a run already matched.
+     */
+    public boolean persistent() {
+        return enabled && persistDir != null && !persistDir.isBlank();
+    }
+
+    public IvfIndex open(float[][] vectors) {
+        int dim = dimension(vectors);
+        if (!enabled || vectors.length < Math.max(1, minSources) || dim == 0) {
+            return null;
+        }
+        int listCount = lists > 0 ? lists : (int) Math.ceil(Math.sqrt(vectors.length));
+        if (!persistent()) {
+            return IvfIndex.build(vectors, dim, listCount, SEED);
+        }
+
+        Path dir = Path.of(persistDir.trim());
+        Path file = null;
+        try {
+            Files.createDirectories(dir);
+            file = dir.resolve(FILE_PREFIX + fingerprint(vectors, dim, listCount) + FILE_SUFFIX);
+            if (Files.isRegularFile(file)) {
+                IvfIndex loaded = IvfIndex.load(file, dim);
+                if (loaded != null && loaded.size() == vectors.length) {
+                    // the modification time doubles as last use for pruning
+                    Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+                    return loaded;
+                }
+            }
+        } catch (Exception ignored) {
+        }
+
+        IvfIndex built = IvfIndex.build(vectors, dim, listCount, SEED);
+        if (file != null) {
+            try {
+                built.save(file);
+                prune(dir);
+            } catch (Exception ignored) {
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Deletes all but the {@code persist-max-files} most recently used index files in {@code dir}. A file still
+     * mapped by a running search stays readable where the OS allows deleting it and is skipped where it does not.
+     */
+    private void prune(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .toList();
+        }
+        int keep = Math.max(1, persistMaxFiles);
+        if (files.size() <= keep) {
+            return;
+        }
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        for (Path path : files) {
+            try {
+                lastUsed.put(path, Files.getLastModifiedTime(path));
+            } catch (IOException ignored) {
+                lastUsed.put(path, FileTime.fromMillis(0L));
+            }
+        }
+        List<Path> newestFirst = new ArrayList<>(files);
+        newestFirst.sort(Comparator.comparing(lastUsed::get, Comparator.reverseOrder()));
+        for (Path stale : newestFirst.subList(keep, newestFirst.size())) {
+            try {
+                Files.deleteIfExists(stale);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private int dimension(float[][] vectors) {
+        for (float[] vector : vectors) {
+            if (vector != null && vector.length > 0) {
+                return vector.length;
+            }
+        }
+        return 0;
+    }
+
+    private String fingerprint(float[][] vectors, int dim, int listCount) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(16, dim * Float.BYTES));
+        buffer.putInt(vectors.length).putInt(dim).putInt(listCount).putInt((int) SEED).flip();
+        digest.update(buffer);
+        for (float[] vector : vectors) {
+            buffer.clear();
+            if (vector != null && vector.length == dim) {
+                buffer.asFloatBuffer().put(vector);
+                buffer.limit(dim * Float.BYTES);
+            } else {
+                buffer.limit(0);
+            }
+            digest.update(buffer);
+            digest.update((byte) (buffer.limit() == 0 ? 0 : 1));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,60 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool for parsing independent schema artifacts side by side.
+ * Results always come back in submission order so callers can merge deterministically.
+ */
+@Component
+public class ArtifactParseExecutor {
+
+    private final ExecutorService pool;
+
+    public ArtifactParseExecutor(@Value("${mapper.parser.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "schema-parse-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<T> invokeAllOrdered(List<Callable<T>> tasks) {
+        List<T> out = new ArrayList<>(tasks.size());
+        try {
+            if (tasks.size() == 1) {
+                out.add(tasks.get(0).call());
+                return out;
+            }
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                out.add(future.get());
+            }
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Schema artifact parsing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Schema artifact parsing failed", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Schema artifact parsing failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,201 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds indexed leaf paths (items[0].sku, items[1].sku, ...) into one structural path (items[*].sku)
+ * and keeps per-path stats while doing so. Leaves must arrive in document order: every index position
+ * tracks only the array instance it is currently inside, so memory grows with unique paths, not with data.
+ * <p>
+ * With {@code indicesAreArrays} (JSON) every index is an array. Otherwise (XML) an index is a sibling ordinal,
+ * and it only becomes [*] when that element was seen repeated somewhere in the document.
+ */
+public class CollapsedFieldAggregator {
+
+    private static final String WILDCARD = "[*]";
+
+    private final boolean indicesAreArrays;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private int[] openAt = new int[8];
+    private int[] indexAt = new int[8];
+    private int[] wildcardAt = new int[8];
+
+    public CollapsedFieldAggregator(boolean indicesAreArrays) {
+        this.indicesAreArrays = indicesAreArrays;
+    }
+
+    public void accept(String path, String type) {
+        StringBuilder key = new StringBuilder(path.length());
+        int positions = 0;
+        int copiedUpTo = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) != '[') {
+                continue;
+            }
+            int close = path.indexOf(']', i);
+            int index = close > i + 1 ? parseIndex(path, i + 1, close) : -1;
+            if (index < 0) {
+                continue;
+            }
+            if (positions == openAt.length) {
+                openAt = Arrays.copyOf(openAt, positions * 2);
+                indexAt = Arrays.copyOf(indexAt, positions * 2);
+                wildcardAt = Arrays.copyOf(wildcardAt, positions * 2);
+            }
+            key.append(path, copiedUpTo, i);
+            openAt[positions] = i;
+            indexAt[positions] = index;
+            wildcardAt[positions] = key.length();
+            positions++;
+            key.append(WILDCARD);
+            copiedUpTo = close + 1;
+            i = close;
+        }
+        key.append(path, copiedUpTo, path.length());
+
+        int depth = positions;
+        Entry entry = entries.computeIfAbsent(key.toString(), k -> new Entry(k, Arrays.copyOf(wildcardAt, depth)));
+        entry.occurrences++;
+        entry.observedTypes.add(type);
+        for (int p = 0; p < depth; p++) {
+            int prefixLength = openAt[p];
+            boolean sameInstance = entry.lastPath != null
+                    && entry.lastPrefixLength[p] == prefixLength
+                    && path.regionMatches(0, entry.lastPath, 0, prefixLength);
+            if (!sameInstance) {
+                entry.closeInstance(p);
+                entry.lastPrefixLength[p] = prefixLength;
+            }
+            entry.current[p] = Math.max(entry.current[p], indexAt[p] + 1);
+            if (indexAt[p] > 0) {
+                entry.repeated[p] = true;
+            }
+        }
+        entry.lastPath = path;
+    }
+
+    public List<CollapsedField> fields() {
+        Set<String> repeatedPrefixes = new HashSet<>();
+        if (!indicesAreArrays) {
+            for (Entry entry : entries.values()) {
+                for (int p = 0; p < entry.depth; p++) {
+                    if (entry.repeated[p]) {
+                        repeatedPrefixes.add(entry.key.substring(0, entry.wildcardAt[p]));
+                    }
+                }
+            }
+        }
+
+        List<CollapsedField> out = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            StringBuilder path = new StringBuilder(entry.key.length());
+            int copiedUpTo = 0;
+            int cardinalityAt = -1;
+            for (int p = 0; p < entry.depth; p++) {
+                int at = entry.wildcardAt[p];
+                path.append(entry.key, copiedUpTo, at);
+                if (indicesAreArrays || repeatedPrefixes.contains(entry.key.substring(0, at))) {
+                    path.append(WILDCARD);
+                    cardinalityAt = p;
+                }
+                copiedUpTo = at + WILDCARD.length();
+            }
+            path.append(entry.key, copiedUpTo, entry.key.length());
+
+            int min = 1;
+            int max = 1;
+            if (cardinalityAt >= 0) {
+                entry.closeInstance(cardinalityAt);
+                min = entry.min[cardinalityAt];
+                max = entry.max[cardinalityAt];
+            }
+            out.add(new CollapsedField(
+                    path.toString(),
+                    resolveType(entry.observedTypes),
+                    entry.occurrences,
+                    min,
+                    max,
+                    List.copyOf(entry.observedTypes)
+            ));
+        }
+        return out;
+    }
+
+    private int parseIndex(String path, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private String resolveType(Set<String> observedTypes) {
+        String resolved = null;
+        for (String type : observedTypes) {
+            if ("null".equals(type)) {
+                continue;
+            }
+            if (resolved != null && !resolved.equals(type)) {
+                return "string";
+            }
+            resolved = type;
+        }
+        return resolved == null ? "null" : resolved;
+    }
+
+    public record CollapsedField(
+            String path,
+            String type,
+            int occurrences,
+            int minCardinality,
+            int maxCardinality,
+            List<String> observedTypes
+    ) {}
+
+    private static final class Entry {
+        private final String key;
+        private final int depth;
+        private final int[] wildcardAt;
+        private final int[] lastPrefixLength;
+        private final int[] current;
+        private final int[] min;
+        private final int[] max;
+        private final boolean[] repeated;
+        private final Set<String> observedTypes = new LinkedHashSet<>(2);
+        private String lastPath;
+        private int occurrences;
+
+        private Entry(String key, int[] wildcardAt) {
+            this.key = key;
+            this.depth = wildcardAt.length;
+            this.wildcardAt = wildcardAt;
+            this.lastPrefixLength = new int[depth];
+            this.current = new int[depth];
+            this.min = new int[depth];
+            this.max = new int[depth];
+            this.repeated = new boolean[depth];
+            Arrays.fill(min, Integer.MAX_VALUE);
+        }
+
+        private void closeInstance(int p) {
+            if (current[p] == 0) {
+                return;
+            }
+            min[p] = Math.min(min[p], current[p]);
+            max[p] = Math.max(max[p], current[p]);
+            current[p] = 0;
+        }
+    }
+}
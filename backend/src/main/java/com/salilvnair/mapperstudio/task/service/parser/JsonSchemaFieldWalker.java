@@ -0,0 +1,259 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks a JSON Schema (draft-04 through 2020-12, including OpenAPI-style components/schemas) down to its
+ * leaves: nested properties are joined with '.', array items become [*], allOf is merged and
+ * oneOf/anyOf branches are unioned as optional fields, except properties the enclosing schema lists as
+ * {@code required}, which every branch must then carry.
+ * <p>
+ * Local {@code $ref}s (#/$defs/..., #/definitions/..., #/components/schemas/...) are expanded once and the
+ * result reused for every reference. A ref reached again while it is still being expanded is a recursive
+ * branch and is cut there. The working set stays bounded by {@code max-depth} path segments and
+ * {@code max-fields} emitted leaves; anything past either limit is dropped.
+ */
+@Component
+public class JsonSchemaFieldWalker {
+
+    private final ObjectMapper mapper;
+
+    @Value("${mapper.parser.json-schema.max-depth:16}")
+    private int maxDepth;
+
+    @Value("${mapper.parser.json-schema.max-fields:50000}")
+    private int maxFields;
+
+    public JsonSchemaFieldWalker(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * The settings that change what {@link #walk} emits, for parse cache keys.
+     */
+    public String settingsKey() {
+        return "maxDepth=" + maxDepth + ";maxFields=" + maxFields;
+    }
+
+    public List<SchemaLeaf> walk(String schemaText) throws IOException {
+        JsonNode root = mapper.readTree(schemaText);
+        if (root == null || !root.isObject()) {
+            return List.of();
+        }
+        return new Walk(root, Math.max(1, maxDepth), Math.max(1, maxFields)).leaves();
+    }
+
+    /**
+     * A leaf relative to where its expansion started; the empty path is the schema itself (a scalar).
+     */
+    public record SchemaLeaf(String path, String type, boolean required, int depth) {
+
+        private SchemaLeaf under(String segment, boolean parentRequired) {
+            String child = path.isEmpty() ? segment : path.startsWith("[") ? segment + path : segment + "." + path;
+            return new SchemaLeaf(child, type, parentRequired && required, depth + 1);
+        }
+    }
+
+    private static final class Walk {
+        private final JsonNode root;
+        private final int maxDepth;
+        private final int maxFields;
+        private final Map<String, List<SchemaLeaf>> expandedRefs = new HashMap<>();
+        private final Set<String> expanding = new HashSet<>();
+
+        private Walk(JsonNode root, int maxDepth, int maxFields) {
+            this.root = root;
+            this.maxDepth = maxDepth;
+            this.maxFields = maxFields;
+        }
+
+        private List<SchemaLeaf> leaves() {
+            List<SchemaLeaf> out = new ArrayList<>();
+            for (SchemaLeaf leaf : expand(root, 0)) {
+                if (!leaf.path().isEmpty()) {
+                    out.add(leaf);
+                }
+            }
+            return out;
+        }
+
+        private List<SchemaLeaf> expand(JsonNode schema, int nesting) {
+            return expand(schema, nesting, Set.of());
+        }
+
+        /**
+         * @param inheritedRequired {@code required} names of the schema this one is an allOf/oneOf/anyOf branch of,
+         *                          which apply to this schema's properties too
+         */
+        private List<SchemaLeaf> expand(JsonNode schema, int nesting, Set<String> inheritedRequired) {
+            if (schema == null || !schema.isObject() || nesting > maxDepth * 4) {
+                return List.of();
+            }
+            JsonNode ref = schema.get("$ref");
+            if (ref != null && ref.isTextual()) {
+                return expandRef(ref.asText(), inheritedRequired);
+            }
+
+            Set<String> required = new HashSet<>(inheritedRequired);
+            JsonNode requiredNode = schema.get("required");
+            if (requiredNode != null && requiredNode.isArray()) {
+                for (JsonNode name : requiredNode) {
+                    required.add(name.asText());
+                }
+            }
+
+            List<SchemaLeaf> out = new ArrayList<>();
+            expandAll(schema.get("allOf"), true, nesting, required, out);
+            expandAll(schema.get("oneOf"), false, nesting, required, out);
+            expandAll(schema.get("anyOf"), false, nesting, required, out);
+
+            JsonNode properties = schema.get("properties");
+            String type = primaryType(schema);
+            if (properties != null && properties.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+                while (fields.hasNext() && out.size() < maxFields) {
+                    Map.Entry<String, JsonNode> property = fields.next();
+                    boolean propertyRequired = required.contains(property.getKey());
+                    List<SchemaLeaf> child = expand(property.getValue(), nesting + 1);
+                    if (child.isEmpty()) {
+                        child = List.of(new SchemaLeaf("", primaryType(property.getValue()), true, 0));
+                    }
+                    addUnder(child, property.getKey(), propertyRequired, out);
+                }
+            } else if ("array".equals(type) || schema.has("items") || schema.has("prefixItems")) {
+                JsonNode items = schema.has("prefixItems") ? schema.get("prefixItems") : schema.get("items");
+                List<SchemaLeaf> itemLeaves = new ArrayList<>();
+                if (items != null && items.isArray()) {
+                    for (JsonNode item : items) {
+                        itemLeaves.addAll(expand(item, nesting + 1));
+                    }
+                } else {
+                    itemLeaves.addAll(expand(items, nesting + 1));
+                }
+                if (itemLeaves.isEmpty()) {
+                    itemLeaves.add(new SchemaLeaf("", items == null ? "string" : primaryType(items), true, 0));
+                }
+                addUnder(itemLeaves, "[*]", true, out);
+            } else if (out.isEmpty() && !"object".equals(type)) {
+                out.add(new SchemaLeaf("", type, true, 0));
+            }
+            return out;
+        }
+
+        /**
+         * Branches see {@code required} before they are merged; a oneOf/anyOf leaf stays required only under a
+         * property in {@code required}.
+         */
+        private void expandAll(JsonNode branches, boolean keepRequired, int nesting, Set<String> required, List<SchemaLeaf> out) {
+            if (branches == null || !branches.isArray()) {
+                return;
+            }
+            for (JsonNode branch : branches) {
+                for (SchemaLeaf leaf : expand(branch, nesting + 1, required)) {
+                    if (out.size() >= maxFields) {
+                        return;
+                    }
+                    boolean kept = keepRequired || required.contains(topProperty(leaf.path()));
+                    out.add(kept ? leaf : new SchemaLeaf(leaf.path(), leaf.type(), false, leaf.depth()));
+                }
+            }
+        }
+
+        private static String topProperty(String path) {
+            int end = path.length();
+            int dot = path.indexOf('.');
+            int bracket = path.indexOf('[');
+            if (dot >= 0) {
+                end = dot;
+            }
+            if (bracket >= 0 && bracket < end) {
+                end = bracket;
+            }
+            return path.substring(0, end);
+        }
+
+        /**
+         * Expansions without inherited {@code required} names are shared by every reference to {@code ref}; the
+         * others depend on the referencing schema and are not cached.
+         */
+        private List<SchemaLeaf> expandRef(String ref, Set<String> inheritedRequired) {
+            List<SchemaLeaf> cached = inheritedRequired.isEmpty() ? expandedRefs.get(ref) : null;
+            if (cached != null) {
+                return cached;
+            }
+            JsonNode target = resolvePointer(ref);
+            if (target == null) {
+                return List.of(new SchemaLeaf("", "string", true, 0));
+            }
+            if (!expanding.add(ref)) {
+                return List.of();
+            }
+            try {
+                List<SchemaLeaf> expanded = List.copyOf(expand(target, 0, inheritedRequired));
+                if (inheritedRequired.isEmpty()) {
+                    expandedRefs.put(ref, expanded);
+                }
+                return expanded;
+            } finally {
+                expanding.remove(ref);
+            }
+        }
+
+        private JsonNode resolvePointer(String ref) {
+            if (!ref.startsWith("#")) {
+                return null;
+            }
+            String pointer = ref.substring(1);
+            if (pointer.isEmpty()) {
+                return root;
+            }
+            try {
+                JsonNode node = root.at(pointer);
+                return node.isMissingNode() ? null : node;
+            } catch (Exception ignored) {
+                return null;
+            }
+        }
+
+        private void addUnder(List<SchemaLeaf> leaves, String segment, boolean required, List<SchemaLeaf> out) {
+            for (SchemaLeaf leaf : leaves) {
+                if (out.size() >= maxFields) {
+                    return;
+                }
+                if (leaf.depth() < maxDepth) {
+                    out.add(leaf.under(segment, required));
+                }
+            }
+        }
+
+        private String primaryType(JsonNode schema) {
+            JsonNode type = schema == null ? null : schema.get("type");
+            if (type != null && type.isTextual()) {
+                return type.asText();
+            }
+            if (type != null && type.isArray()) {
+                for (JsonNode option : type) {
+                    if (!"null".equals(option.asText())) {
+                        return option.asText();
+                    }
+                }
+            }
+            if (schema != null && (schema.has("properties") || schema.has("$ref"))) {
+                return "object";
+            }
+            return "string";
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BiConsumer;
+
+/**
+ * Flattens a JSON document into leaf (path, type) pairs straight from the token stream.
+ * Paths follow the tree flattener: object keys joined with '.', array elements as [i],
+ * and a scalar root reported as "root". Nothing but the open container stack is retained.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonTokenFieldFlattener {
+
+    private final ObjectMapper mapper;
+
+    public void flatten(String jsonText, BiConsumer<String, String> leafConsumer) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(jsonText)) {
+            flatten(parser, leafConsumer);
+        }
+    }
+
+    public void flatten(JsonParser parser, BiConsumer<String, String> leafConsumer) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new JsonParseException(parser, "No JSON content to flatten");
+        }
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        String fieldPath = "";
+        do {
+            Frame parent = stack.peek();
+            if (token == JsonToken.FIELD_NAME) {
+                fieldPath = parent.path.isBlank() ? parser.currentName() : parent.path + "." + parser.currentName();
+                continue;
+            }
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                stack.pop();
+                continue;
+            }
+
+            String path = parent == null ? "" : parent.array ? parent.path + "[" + parent.nextIndex++ + "]" : fieldPath;
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                stack.push(new Frame(path, token == JsonToken.START_ARRAY));
+            } else {
+                leafConsumer.accept(path.isBlank() ? "root" : path, inferType(token));
+            }
+        } while (!stack.isEmpty() && (token = parser.nextToken()) != null);
+
+        if (!stack.isEmpty()) {
+            throw new JsonParseException(parser, "Unexpected end of JSON content");
+        }
+    }
+
+    private String inferType(JsonToken token) {
+        return switch (token) {
+            case VALUE_NULL -> "null";
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> "number";
+            case VALUE_TRUE, VALUE_FALSE -> "boolean";
+            default -> "string";
+        };
+    }
+
+    private static final class Frame {
+        private final String path;
+        private final boolean array;
+        private int nextIndex;
+
+        private Frame(String path, boolean array) {
+            this.path = path;
+            this.array = array;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Node-wide cache of the target namespaces each schema document declares, keyed by the SHA-256 of its content, so
+ * finding the uploaded schema for an xsd:import namespace does not parse every artifact of every request.
+ * <p>
+ * DOM trees are not safe to read from several threads (Xerces caches child lists on read), so the documents
+ * themselves are never shared: {@link #compile} parses a private copy for the caller.
+ */
+@Component
+public class SchemaGrammarCache {
+
+    private final LinkedHashMap<String, Set<String>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${mapper.parser.xsd.grammar-cache-size:256}")
+    private int maxEntries;
+
+    public SchemaGrammarCache(MeterRegistry meterRegistry) {
+        this.hits = meterRegistry.counter("mapper.parser.grammar.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("mapper.parser.grammar.cache.requests", "result", "miss");
+        Gauge.builder("mapper.parser.grammar.cache.entries", this, SchemaGrammarCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Target namespaces ("" for none) declared by the content with this SHA-256 (empty when it is not well-formed
+     * XML), or null when it has not been compiled on this node yet.
+     */
+    public Set<String> targetNamespaces(String contentHash) {
+        Set<String> cached = get(contentHash);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Parses {@code content} into a document owned by the caller and records its namespaces, or returns null when
+     * it is not well-formed XML.
+     *
+     * @param contentHash SHA-256 of {@code content}
+     */
+    public CompiledSchema compile(String contentHash, String content) {
+        Document document = parse(content);
+        if (document == null) {
+            put(contentHash, Set.of());
+            return null;
+        }
+        List<Element> schemas = List.copyOf(XsdArtifactResolver.schemaElements(document));
+        Set<String> namespaces = new LinkedHashSet<>();
+        for (Element schema : schemas) {
+            namespaces.add(schema.getAttribute("targetNamespace"));
+        }
+        return new CompiledSchema(contentHash, document, schemas, put(contentHash, Set.copyOf(namespaces)));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized Set<String> get(String contentHash) {
+        return entries.get(contentHash);
+    }
+
+    private synchronized Set<String> put(String contentHash, Set<String> namespaces) {
+        Set<String> existing = entries.putIfAbsent(contentHash, namespaces);
+        if (existing != null) {
+            return existing;
+        }
+        while (entries.size() > Math.max(1, maxEntries)) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+        return namespaces;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private Document parse(String content) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setExpandEntityReferences(false);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(content)));
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    public record CompiledSchema(String contentHash, Document document, List<Element> schemas, Set<String> targetNamespaces) {}
+}
@@ -0,0 +1,121 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Single forward pass over an XML document that reports leaf element paths
+ * (root.child.leaf) without building a DOM. Only the open-element stack is kept in memory.
+ * By default a leaf is reported when it has no element children and non-blank text, matching the DOM flattener.
+ * With {@code indexSiblings} every non-root element carries its ordinal among same-named siblings (Item[0], Item[1]),
+ * which lets {@link CollapsedFieldAggregator} detect repeated elements.
+ */
+@Component
+public class StaxXmlFieldFlattener {
+
+    private final XMLInputFactory factory;
+
+    public StaxXmlFieldFlattener() {
+        factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    public void flatten(String xmlText, Consumer<String> leafPathConsumer) throws XMLStreamException {
+        flatten(xmlText, false, true, leafPathConsumer);
+    }
+
+    public void flatten(
+            String xmlText,
+            boolean indexSiblings,
+            boolean requireText,
+            Consumer<String> leafPathConsumer
+    ) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xmlText));
+        Deque<Frame> stack = new ArrayDeque<>();
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        Frame parent = stack.peek();
+                        String name = qualifiedName(reader);
+                        if (parent == null) {
+                            stack.push(new Frame(name));
+                        } else {
+                            parent.hasElementChildren = true;
+                            String segment = indexSiblings ? name + "[" + parent.nextOrdinal(name) + "]" : name;
+                            stack.push(new Frame(parent.path + "." + segment));
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        Frame current = stack.peek();
+                        if (current != null && !current.hasText && hasVisibleText(reader)) {
+                            current.hasText = true;
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        Frame closed = stack.pop();
+                        if (!closed.hasElementChildren && (closed.hasText || !requireText)) {
+                            leafPathConsumer.accept(closed.path);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean hasVisibleText(XMLStreamReader reader) {
+        char[] chars = reader.getTextCharacters();
+        int end = reader.getTextStart() + reader.getTextLength();
+        for (int i = reader.getTextStart(); i < end; i++) {
+            char c = chars[i];
+            if (c > ' ' && !Character.isWhitespace(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String qualifiedName(XMLStreamReader reader) {
+        String local = reader.getLocalName();
+        String prefix = reader.getPrefix();
+        if (prefix == null || prefix.isEmpty() || local.indexOf(':') >= 0) {
+            return local;
+        }
+        return prefix + ":" + local;
+    }
+
+    private static final class Frame {
+        private final String path;
+        private boolean hasElementChildren;
+        private boolean hasText;
+        private Map<String, Integer> childOrdinals;
+
+        private Frame(String path) {
+            this.path = path;
+        }
+
+        private int nextOrdinal(String childName) {
+            if (childOrdinals == null) {
+                childOrdinals = new HashMap<>();
+            }
+            return childOrdinals.merge(childName, 1, Integer::sum) - 1;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import com.salilvnair.mapperstudio.task.service.cache.ContentHasher;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.catalog.CatalogFeatures;
+import javax.xml.catalog.CatalogManager;
+import javax.xml.catalog.CatalogResolver;
+import javax.xml.transform.Source;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Follows xsd:import / xsd:include / xsd:redefine from a schema or WSDL (wsdl:types) without touching the
+ * network. A schemaLocation is looked up, in order, by file name among the uploaded artifacts, by target
+ * namespace among the uploaded artifacts (never the artifact holding the directive), and through the local XML
+ * catalogs in {@code mapper.parser.xsd.catalog-files}. Only file: results from a catalog that lie under one of the
+ * catalog files' directories are read; anything else is reported as unresolved. Each resolved document is parsed
+ * once per call; {@link SchemaGrammarCache} remembers which namespaces uploaded documents declare.
+ */
+@Component
+@RequiredArgsConstructor
+public class XsdArtifactResolver {
+
+    private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+
+    private final SchemaGrammarCache schemaGrammarCache;
+
+    @Value("${mapper.parser.xsd.catalog-files:}")
+    private String catalogFiles;
+
+    private CatalogResolver catalogResolver;
+    private final List<Path> catalogDirs = new ArrayList<>();
+    private String settingsKey = "";
+
+    @PostConstruct
+    void initCatalog() {
+        List<URI> catalogs = new ArrayList<>();
+        List<String> keyParts = new ArrayList<>();
+        for (String file : catalogFiles.split(",")) {
+            Path path = Path.of(file.trim());
+            if (!file.isBlank() && Files.isRegularFile(path)) {
+                catalogs.add(path.toAbsolutePath().toUri());
+                keyParts.add(path.toAbsolutePath().toString());
+                try {
+                    keyParts.add(Files.readString(path));
+                    catalogDirs.add(path.toRealPath().getParent());
+                } catch (Exception ignored) {
+                }
+            }
+        }
+        settingsKey = ContentHasher.sha256Hex(keyParts.toArray(String[]::new));
+        if (catalogs.isEmpty()) {
+            return;
+        }
+        CatalogFeatures features = CatalogFeatures.builder()
+                .with(CatalogFeatures.Feature.PREFER, "system")
+                .with(CatalogFeatures.Feature.RESOLVE, "continue")
+                .build();
+        catalogResolver = CatalogManager.catalogResolver(features, catalogs.toArray(URI[]::new));
+    }
+
+    /**
+     * The catalogs in use (paths and content as read at startup), for parse cache keys: a changed catalog can
+     * resolve imports differently.
+     */
+    public String settingsKey() {
+        return settingsKey;
+    }
+
+    /**
+     * @param document  the artifact being parsed
+     * @param content   its text, so a namespace lookup does not resolve an include back to it
+     * @param artifacts every uploaded artifact of the target (name -> content), including this one
+     */
+    public ResolvedSchemas resolve(Document document, String content, Map<String, String> artifacts) {
+        List<Element> own = schemaElements(document);
+        List<Element> imported = new ArrayList<>();
+        List<Element> direct = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        Map<String, String> byFileName = indexByFileName(artifacts);
+        // per call: the content hashes computed and the documents parsed so far
+        Map<String, String> hashes = new IdentityHashMap<>();
+        Map<String, SchemaGrammarCache.CompiledSchema> parsed = new HashMap<>();
+
+        // content hash of the artifact each schema element came from
+        Map<Element, String> sourceOf = new IdentityHashMap<>();
+        String ownHash = hash(content == null ? "" : content, hashes);
+        for (Element schema : own) {
+            sourceOf.put(schema, ownHash);
+        }
+
+        Set<String> visited = new HashSet<>();
+        Deque<Element> pending = new ArrayDeque<>(own);
+        while (!pending.isEmpty()) {
+            Element schema = pending.poll();
+            for (Node child = schema.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (!(child instanceof Element directive)) {
+                    continue;
+                }
+                String kind = localName(directive);
+                if (!"import".equals(kind) && !"include".equals(kind) && !"redefine".equals(kind)) {
+                    continue;
+                }
+                String location = directive.getAttribute("schemaLocation").trim();
+                String namespace = "import".equals(kind)
+                        ? directive.getAttribute("namespace").trim()
+                        : schema.getAttribute("targetNamespace").trim();
+
+                SchemaGrammarCache.CompiledSchema compiled = locate(location, namespace, sourceOf.get(schema), byFileName, artifacts, hashes, parsed);
+                if (compiled == null) {
+                    if (!XSD_NS.equals(namespace)) {
+                        unresolved.add(location.isBlank() ? namespace : location);
+                    }
+                    continue;
+                }
+                if (visited.add(compiled.contentHash())) {
+                    for (Element resolved : compiled.schemas()) {
+                        sourceOf.put(resolved, compiled.contentHash());
+                    }
+                    imported.addAll(compiled.schemas());
+                    pending.addAll(compiled.schemas());
+                    if (own.contains(schema)) {
+                        direct.addAll(compiled.schemas());
+                    }
+                }
+            }
+        }
+        return new ResolvedSchemas(own, imported, direct, unresolved);
+    }
+
+    private SchemaGrammarCache.CompiledSchema locate(
+            String location,
+            String namespace,
+            String sourceHash,
+            Map<String, String> byFileName,
+            Map<String, String> artifacts,
+            Map<String, String> hashes,
+            Map<String, SchemaGrammarCache.CompiledSchema> parsed
+    ) {
+        if (!location.isBlank()) {
+            String content = byFileName.get(fileName(location));
+            if (content != null) {
+                return compile(content, hashes, parsed);
+            }
+        }
+
+        if (!namespace.isBlank()) {
+            for (String content : artifacts.values()) {
+                String hash = hash(content, hashes);
+                if (hash.equals(sourceHash)) {
+                    continue;
+                }
+                Set<String> declared = schemaGrammarCache.targetNamespaces(hash);
+                if (declared == null) {
+                    SchemaGrammarCache.CompiledSchema compiled = compile(content, hashes, parsed);
+                    declared = compiled == null ? Set.of() : compiled.targetNamespaces();
+                }
+                if (declared.contains(namespace)) {
+                    return compile(content, hashes, parsed);
+                }
+            }
+        }
+
+        String content = readFromCatalog(location, namespace);
+        return content == null ? null : compile(content, hashes, parsed);
+    }
+
+    private SchemaGrammarCache.CompiledSchema compile(String content, Map<String, String> hashes, Map<String, SchemaGrammarCache.CompiledSchema> parsed) {
+        String hash = hash(content, hashes);
+        if (!parsed.containsKey(hash)) {
+            parsed.put(hash, schemaGrammarCache.compile(hash, content));
+        }
+        return parsed.get(hash);
+    }
+
+    private String hash(String content, Map<String, String> hashes) {
+        return hashes.computeIfAbsent(content, ContentHasher::sha256Hex);
+    }
+
+    private String readFromCatalog(String location, String namespace) {
+        if (catalogResolver == null) {
+            return null;
+        }
+        for (String candidate : new String[]{location, namespace}) {
+            if (candidate.isBlank()) {
+                continue;
+            }
+            try {
+                Source source = catalogResolver.resolve(candidate, null);
+                String systemId = source == null ? null : source.getSystemId();
+                if (systemId == null || systemId.isBlank()) {
+                    continue;
+                }
+                URI uri = URI.create(systemId);
+                if ("file".equalsIgnoreCase(uri.getScheme())) {
+                    Path file = Path.of(uri).toRealPath();
+                    if (catalogDirs.stream().anyMatch(file::startsWith)) {
+                        return Files.readString(file);
+                    }
+                }
+            } catch (Exception ignored) {
+            }
+        }
+        return null;
+    }
+
+    private Map<String, String> indexByFileName(Map<String, String> artifacts) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (Map.Entry<String, String> artifact : artifacts.entrySet()) {
+            out.putIfAbsent(fileName(artifact.getKey()), artifact.getValue());
+        }
+        return out;
+    }
+
+    private String fileName(String location) {
+        String normalized = location.replace('\\', '/');
+        int query = normalized.indexOf('?');
+        if (query >= 0) {
+            normalized = normalized.substring(0, query);
+        }
+        return normalized.substring(normalized.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    static List<Element> schemaElements(Document document) {
+        List<Element> out = new ArrayList<>();
+        collectSchemas(document.getDocumentElement(), out);
+        return out;
+    }
+
+    private static void collectSchemas(Element el, List<Element> out) {
+        if (el == null) {
+            return;
+        }
+        if ("schema".equals(localName(el)) && (el.getNamespaceURI() == null || XSD_NS.equals(el.getNamespaceURI()))) {
+            out.add(el);
+            return;
+        }
+        for (Node child = el.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element childEl) {
+                collectSchemas(childEl, out);
+            }
+        }
+    }
+
+    private static String localName(Element el) {
+        String name = el.getLocalName() != null ? el.getLocalName() : el.getTagName();
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    /**
+     * {@code own} are the schemas inside the parsed artifact, {@code imported} everything reachable from them
+     * and {@code direct} the subset imported or included by {@code own} itself.
+     */
+    public record ResolvedSchemas(List<Element> own, List<Element> imported, List<Element> direct, List<String> unresolved) {}
+}
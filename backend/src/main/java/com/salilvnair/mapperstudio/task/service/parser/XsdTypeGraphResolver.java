@@ -0,0 +1,457 @@
+package com.salilvnair.mapperstudio.task.service.parser;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks an XSD as a type graph instead of a flat element list. Every global element that is not
+ * referenced elsewhere is a root; element {@code type=}/{@code ref=} links, sequence/choice/all,
+ * groups, attribute groups and complexContent extension are followed down to the leaves, which are
+ * reported with their full dotted path (Account.BillingAddress.City, Account.@id).
+ * <p>
+ * Named complexTypes are expanded once per document and reused for every element that points at them.
+ * A type that is reached again while it is still being expanded is a recursive branch and is cut there;
+ * paths deeper than {@code mapper.parser.xsd.max-depth} segments are dropped.
+ */
+@Component
+public class XsdTypeGraphResolver {
+
+    private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+
+    @Value("${mapper.parser.xsd.max-depth:16}")
+    private int maxDepth;
+
+    /**
+     * The settings that change what {@link #resolve} emits, for parse cache keys.
+     */
+    public String settingsKey() {
+        return "maxDepth=" + maxDepth;
+    }
+
+    /**
+     * Roots are taken from the artifact's own schemas; imported schemas only contribute declarations.
+     * When the artifact declares no elements itself (a WSDL whose types section is just imports), roots
+     * come from the schemas it imports directly rather than from shared types further down.
+     */
+    public List<XsdLeaf> resolve(XsdArtifactResolver.ResolvedSchemas schemas) {
+        if (schemas.own().isEmpty() && schemas.imported().isEmpty()) {
+            return List.of();
+        }
+        TypeGraph graph = new TypeGraph(schemas.own(), schemas.imported(), Math.max(1, maxDepth));
+        if (!graph.declaresRootCandidates()) {
+            graph = new TypeGraph(schemas.direct(), schemas.imported(), Math.max(1, maxDepth));
+        }
+        return graph.leaves();
+    }
+
+    /**
+     * A resolved leaf. {@code path} is relative to wherever the expansion started; an empty path stands
+     * for the element's own text value (simpleContent). {@code rawType} is the xsd type name as declared,
+     * with named simpleTypes already followed to their base.
+     */
+    public record XsdLeaf(String path, String rawType, boolean required, int depth) {
+
+        private XsdLeaf under(String name, boolean parentRequired) {
+            String child = path.isEmpty() ? name : name + "." + path;
+            return new XsdLeaf(child, rawType, parentRequired && required, depth + 1);
+        }
+    }
+
+    private static final class TypeGraph {
+        private final int maxDepth;
+        private final Map<String, Element> elements = new LinkedHashMap<>();
+        private final Set<String> ownElements = new HashSet<>();
+        private final Map<String, Element> complexTypes = new HashMap<>();
+        private final Map<String, Element> simpleTypes = new HashMap<>();
+        private final Map<String, Element> groups = new HashMap<>();
+        private final Map<String, Element> attributeGroups = new HashMap<>();
+        private final Map<String, Element> attributes = new HashMap<>();
+        private final Set<String> referencedElements = new HashSet<>();
+        private final Map<String, Expansion> expandedTypes = new HashMap<>();
+        // guards currently being expanded -> their position on the expansion stack
+        private final Map<String, Integer> expanding = new HashMap<>();
+        // guards met and shallowest stack position a cycle was cut at, since the innermost named type started
+        private Set<String> touched = new HashSet<>();
+        private int shallowestCut = Integer.MAX_VALUE;
+
+        private TypeGraph(List<Element> ownSchemas, List<Element> importedSchemas, int maxDepth) {
+            this.maxDepth = maxDepth;
+            List<Element> schemas = new ArrayList<>(ownSchemas);
+            schemas.addAll(importedSchemas);
+            for (Element schema : schemas) {
+                for (Element decl : children(schema)) {
+                    String name = decl.getAttribute("name");
+                    if (name.isBlank()) {
+                        continue;
+                    }
+                    switch (localName(decl)) {
+                        case "element" -> elements.putIfAbsent(name, decl);
+                        case "complexType" -> complexTypes.putIfAbsent(name, decl);
+                        case "simpleType" -> simpleTypes.putIfAbsent(name, decl);
+                        case "group" -> groups.putIfAbsent(name, decl);
+                        case "attributeGroup" -> attributeGroups.putIfAbsent(name, decl);
+                        case "attribute" -> attributes.putIfAbsent(name, decl);
+                        default -> {
+                        }
+                    }
+                }
+                for (Element decl : children(schema)) {
+                    collectReferences(decl, decl.getAttribute("name"));
+                }
+            }
+            for (Element schema : ownSchemas) {
+                for (Element decl : children(schema)) {
+                    if ("element".equals(localName(decl)) && !decl.getAttribute("name").isBlank()) {
+                        ownElements.add(decl.getAttribute("name"));
+                    }
+                }
+            }
+        }
+
+        // a global element that only references itself is still a root
+        private void collectReferences(Element el, String globalName) {
+            if ("element".equals(localName(el)) && el.hasAttribute("ref")) {
+                String ref = stripPrefix(el.getAttribute("ref"));
+                if (!ref.equals(globalName)) {
+                    referencedElements.add(ref);
+                }
+            }
+            for (Element child : children(el)) {
+                collectReferences(child, globalName);
+            }
+        }
+
+        private boolean declaresRootCandidates() {
+            return !ownElements.isEmpty();
+        }
+
+        private List<XsdLeaf> leaves() {
+            List<Element> roots = new ArrayList<>();
+            boolean ownOnly = !ownElements.isEmpty();
+            for (Map.Entry<String, Element> entry : elements.entrySet()) {
+                if (!referencedElements.contains(entry.getKey()) && (!ownOnly || ownElements.contains(entry.getKey()))) {
+                    roots.add(entry.getValue());
+                }
+            }
+            if (roots.isEmpty()) {
+                roots.addAll(elements.values());
+            }
+
+            List<XsdLeaf> out = new ArrayList<>();
+            for (Element root : roots) {
+                out.addAll(expandElement(root, true));
+            }
+            return out;
+        }
+
+        private List<XsdLeaf> expandElement(Element particle, boolean parentRequired) {
+            Element decl = particle;
+            String name = particle.getAttribute("name");
+            if (particle.hasAttribute("ref")) {
+                name = stripPrefix(particle.getAttribute("ref"));
+                decl = elements.get(name);
+            }
+            if (name.isBlank()) {
+                return List.of();
+            }
+            boolean required = parentRequired && occursRequired(particle);
+            if (decl == null) {
+                return List.of(new XsdLeaf(name, "", required, 1));
+            }
+
+            // global elements can reach themselves through ref= and an anonymous complexType
+            String guard = isGlobal(decl) ? "element:" + name : null;
+            if (guard != null && !enter(guard)) {
+                return List.of();
+            }
+            List<XsdLeaf> content;
+            try {
+                content = complexContentOf(decl);
+            } finally {
+                if (guard != null) {
+                    leave(guard);
+                }
+            }
+            if (content == null) {
+                return List.of(new XsdLeaf(name, simpleTypeOf(decl), required, 1));
+            }
+            List<XsdLeaf> out = new ArrayList<>(content.size());
+            for (XsdLeaf leaf : content) {
+                if (leaf.depth() < maxDepth) {
+                    out.add(leaf.under(name, required));
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Leaves below an element declaration, or null when the element itself holds a simple value.
+         */
+        private List<XsdLeaf> complexContentOf(Element decl) {
+            Element inline = firstChild(decl, "complexType");
+            if (inline != null) {
+                return expandComplexType(inline);
+            }
+            String type = decl.getAttribute("type");
+            if (type.isBlank()) {
+                return null;
+            }
+            String typeName = stripPrefix(type);
+            if (isXsdBuiltIn(decl, type) || !complexTypes.containsKey(typeName)) {
+                return null;
+            }
+            return expandNamedType(typeName);
+        }
+
+        /**
+         * An expansion is memoized only when no cycle was cut at a frame above it, and reused only when none of
+         * the guards it met is on the stack now; either way the result is the one a fresh expansion would give.
+         */
+        private List<XsdLeaf> expandNamedType(String typeName) {
+            Expansion cached = expandedTypes.get(typeName);
+            if (cached != null && Collections.disjoint(cached.guards(), expanding.keySet())) {
+                touched.addAll(cached.guards());
+                return cached.leaves();
+            }
+            Element complexType = complexTypes.get(typeName);
+            int position = expanding.size();
+            if (complexType == null || !enter(typeName)) {
+                return List.of();
+            }
+            Set<String> outerTouched = touched;
+            int outerCut = shallowestCut;
+            touched = new HashSet<>(Set.of(typeName));
+            shallowestCut = Integer.MAX_VALUE;
+            try {
+                List<XsdLeaf> expanded = List.copyOf(expandComplexType(complexType));
+                if (shallowestCut >= position) {
+                    expandedTypes.put(typeName, new Expansion(expanded, Set.copyOf(touched)));
+                }
+                return expanded;
+            } finally {
+                leave(typeName);
+                outerTouched.addAll(touched);
+                touched = outerTouched;
+                shallowestCut = Math.min(outerCut, shallowestCut);
+            }
+        }
+
+        /**
+         * Pushes {@code guard}, or records the cycle and returns false when it is already being expanded.
+         */
+        private boolean enter(String guard) {
+            touched.add(guard);
+            Integer position = expanding.putIfAbsent(guard, expanding.size());
+            if (position != null) {
+                shallowestCut = Math.min(shallowestCut, position);
+                return false;
+            }
+            return true;
+        }
+
+        private void leave(String guard) {
+            expanding.remove(guard);
+        }
+
+        private record Expansion(List<XsdLeaf> leaves, Set<String> guards) {}
+
+        private List<XsdLeaf> expandComplexType(Element complexType) {
+            List<XsdLeaf> out = new ArrayList<>();
+            for (Element child : children(complexType)) {
+                switch (localName(child)) {
+                    case "sequence", "all", "choice", "group" -> expandModelGroup(child, true, out);
+                    case "attribute", "attributeGroup" -> expandAttributes(child, out);
+                    case "complexContent" -> expandDerivation(child, out, false);
+                    case "simpleContent" -> expandDerivation(child, out, true);
+                    default -> {
+                    }
+                }
+            }
+            return out;
+        }
+
+        private void expandDerivation(Element content, List<XsdLeaf> out, boolean simpleContent) {
+            for (Element derivation : children(content)) {
+                String kind = localName(derivation);
+                if (!"extension".equals(kind) && !"restriction".equals(kind)) {
+                    continue;
+                }
+                String base = derivation.getAttribute("base");
+                if (simpleContent) {
+                    out.add(new XsdLeaf("", resolveSimpleTypeName(derivation, base, 0), true, 0));
+                } else if ("extension".equals(kind) && !base.isBlank()) {
+                    out.addAll(expandNamedType(stripPrefix(base)));
+                }
+                for (Element child : children(derivation)) {
+                    switch (localName(child)) {
+                        case "sequence", "all", "choice", "group" -> {
+                            if (!simpleContent) {
+                                expandModelGroup(child, true, out);
+                            }
+                        }
+                        case "attribute", "attributeGroup" -> expandAttributes(child, out);
+                        default -> {
+                        }
+                    }
+                }
+            }
+        }
+
+        private void expandModelGroup(Element group, boolean parentRequired, List<XsdLeaf> out) {
+            String kind = localName(group);
+            if ("group".equals(kind) && group.hasAttribute("ref")) {
+                String groupName = stripPrefix(group.getAttribute("ref"));
+                Element named = groups.get(groupName);
+                if (named == null || !enter("group:" + groupName)) {
+                    return;
+                }
+                try {
+                    boolean required = parentRequired && occursRequired(group);
+                    for (Element child : children(named)) {
+                        expandModelGroup(child, required, out);
+                    }
+                } finally {
+                    leave("group:" + groupName);
+                }
+                return;
+            }
+            if (!"sequence".equals(kind) && !"all".equals(kind) && !"choice".equals(kind)) {
+                return;
+            }
+
+            boolean required = parentRequired && occursRequired(group) && !"choice".equals(kind);
+            for (Element child : children(group)) {
+                switch (localName(child)) {
+                    case "element" -> out.addAll(expandElement(child, required));
+                    case "sequence", "all", "choice", "group" -> expandModelGroup(child, required, out);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void expandAttributes(Element node, List<XsdLeaf> out) {
+            if ("attributeGroup".equals(localName(node))) {
+                String groupName = stripPrefix(node.getAttribute("ref"));
+                Element named = attributeGroups.get(groupName);
+                if (named == null || !enter("attributeGroup:" + groupName)) {
+                    return;
+                }
+                try {
+                    for (Element child : children(named)) {
+                        expandAttributes(child, out);
+                    }
+                } finally {
+                    leave("attributeGroup:" + groupName);
+                }
+                return;
+            }
+            if (!"attribute".equals(localName(node)) || "prohibited".equals(node.getAttribute("use"))) {
+                return;
+            }
+
+            Element decl = node;
+            String name = node.getAttribute("name");
+            if (node.hasAttribute("ref")) {
+                name = stripPrefix(node.getAttribute("ref"));
+                decl = attributes.getOrDefault(name, node);
+            }
+            if (name.isBlank()) {
+                return;
+            }
+            boolean required = "required".equals(node.getAttribute("use"));
+            out.add(new XsdLeaf("@" + name, simpleTypeOf(decl), required, 1));
+        }
+
+        private String simpleTypeOf(Element decl) {
+            Element inline = firstChild(decl, "simpleType");
+            if (inline != null) {
+                return resolveSimpleType(inline, 0);
+            }
+            return resolveSimpleTypeName(decl, decl.getAttribute("type"), 0);
+        }
+
+        private String resolveSimpleTypeName(Element context, String type, int hops) {
+            if (type.isBlank() || isXsdBuiltIn(context, type)) {
+                return type;
+            }
+            Element named = simpleTypes.get(stripPrefix(type));
+            return named == null ? type : resolveSimpleType(named, hops + 1);
+        }
+
+        private String resolveSimpleType(Element simpleType, int hops) {
+            if (hops > maxDepth) {
+                return "";
+            }
+            Element restriction = firstChild(simpleType, "restriction");
+            if (restriction == null) {
+                return "";
+            }
+            Element inline = firstChild(restriction, "simpleType");
+            if (inline != null) {
+                return resolveSimpleType(inline, hops + 1);
+            }
+            return resolveSimpleTypeName(restriction, restriction.getAttribute("base"), hops);
+        }
+
+        private boolean isXsdBuiltIn(Element context, String qualifiedType) {
+            int colon = qualifiedType.indexOf(':');
+            if (colon < 0) {
+                return !complexTypes.containsKey(qualifiedType) && !simpleTypes.containsKey(qualifiedType);
+            }
+            String namespace = context.lookupNamespaceURI(qualifiedType.substring(0, colon));
+            if (namespace != null) {
+                return XSD_NS.equals(namespace);
+            }
+            String prefix = qualifiedType.substring(0, colon);
+            return "xsd".equals(prefix) || "xs".equals(prefix);
+        }
+
+        private boolean isGlobal(Element decl) {
+            return decl.getParentNode() instanceof Element parent && "schema".equals(localName(parent));
+        }
+
+        private boolean occursRequired(Element particle) {
+            return !"0".equals(particle.getAttribute("minOccurs").trim());
+        }
+    }
+
+    private static List<Element> children(Element parent) {
+        List<Element> out = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element el) {
+                out.add(el);
+            }
+        }
+        return out;
+    }
+
+    private static Element firstChild(Element parent, String localName) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element el && localName.equals(localName(el))) {
+                return el;
+            }
+        }
+        return null;
+    }
+
+    private static String localName(Element el) {
+        return el.getLocalName() != null ? el.getLocalName() : stripPrefix(el.getTagName());
+    }
+
+    private static String stripPrefix(String qualifiedName) {
+        int colon = qualifiedName.indexOf(':');
+        return colon >= 0 ? qualifiedName.substring(colon + 1).trim() : qualifiedName.trim();
+    }
+}
@@ -279,3 +279,31 @@ CREATE TABLE IF NOT EXISTS mps_mapping_manual_confirm_audit (
 );
 CREATE INDEX IF NOT EXISTS idx_mps_mapping_manual_confirm_proj_ver
   ON mps_mapping_manual_confirm_audit(project_code, version_code, confirmed_at desc);
+
+CREATE TABLE IF NOT EXISTS mps_parsed_field_cache (
+  cache_key text PRIMARY KEY,
+  field_count integer NOT NULL,
+  fields_json jsonb NOT NULL,
+  created_at timestamptz NOT NULL DEFAULT now(),
+  last_hit_at timestamptz
+);
+
+CREATE TABLE IF NOT EXISTS mps_embedding_cache (
+  model text NOT NULL,
+  text_hash text NOT NULL,
+  dim integer NOT NULL,
+  vector bytea NOT NULL,
+  created_at timestamptz NOT NULL DEFAULT now(),
+  last_hit_at timestamptz,
+  PRIMARY KEY (model, text_hash)
+);
+
+CREATE TABLE IF NOT EXISTS mps_llm_response_cache (
+  cache_key text PRIMARY KEY,
+  provider text NOT NULL,
+  model text NOT NULL,
+  response_text text NOT NULL,
+  expires_at bigint NOT NULL,
+  created_at timestamptz NOT NULL DEFAULT now(),
+  last_hit_at timestamptz
+);
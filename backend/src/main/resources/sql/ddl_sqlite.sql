@@ -286,3 +286,31 @@ CREATE TABLE IF NOT EXISTS mps_mapping_manual_confirm_audit (
 );
 CREATE INDEX IF NOT EXISTS idx_mps_mapping_manual_confirm_proj_ver
   ON mps_mapping_manual_confirm_audit(project_code, version_code, confirmed_at DESC);
+
+CREATE TABLE IF NOT EXISTS mps_parsed_field_cache (
+  cache_key TEXT PRIMARY KEY,
+  field_count INTEGER NOT NULL,
+  fields_json TEXT NOT NULL,
+  created_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  last_hit_at TEXT
+);
+
+CREATE TABLE IF NOT EXISTS mps_embedding_cache (
+  model TEXT NOT NULL,
+  text_hash TEXT NOT NULL,
+  dim INTEGER NOT NULL,
+  vector BLOB NOT NULL,
+  created_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  last_hit_at TEXT,
+  PRIMARY KEY (model, text_hash)
+);
+
+CREATE TABLE IF NOT EXISTS mps_llm_response_cache (
+  cache_key TEXT PRIMARY KEY,
+  provider TEXT NOT NULL,
+  model TEXT NOT NULL,
+  response_text TEXT NOT NULL,
+  expires_at INTEGER NOT NULL,
+  created_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  last_hit_at TEXT
+);
@@ -0,0 +1,76 @@
+package com.salilvnair.mapperstudio.llm.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedVectorTest {
+
+    @Test
+    void roundTripStaysWithinHalfAStep() {
+        float[] vector = randomUnit(new Random(7), 256);
+        QuantizedVector quantized = QuantizedVector.of(vector);
+        float[] restored = quantized.toFloats();
+
+        assertEquals(256, quantized.dim());
+        for (int d = 0; d < vector.length; d++) {
+            assertTrue(Math.abs(restored[d] - vector[d]) <= quantized.scale() / 2f + 1e-7f, "dimension " + d);
+        }
+    }
+
+    @Test
+    void largestComponentUsesTheFullRange() {
+        QuantizedVector quantized = QuantizedVector.of(new float[]{0.5f, -1f, 0.25f});
+
+        assertEquals(1f / 127f, quantized.scale(), 1e-9f);
+        assertEquals(-127, quantized.values()[1]);
+        assertEquals(64, quantized.values()[0]);
+    }
+
+    @Test
+    void zeroVectorGetsZeroScale() {
+        QuantizedVector quantized = QuantizedVector.of(new float[4]);
+
+        assertEquals(0f, quantized.scale());
+        for (float value : quantized.toFloats()) {
+            assertEquals(0f, value);
+        }
+    }
+
+    @Test
+    void quantizeIntoWritesAtTheOffset() {
+        byte[] out = new byte[6];
+        float scale = QuantizedVector.quantizeInto(new float[]{1f, -1f}, out, 3);
+
+        assertEquals(1f / 127f, scale, 1e-9f);
+        assertEquals(0, out[2]);
+        assertEquals(127, out[3]);
+        assertEquals(-127, out[4]);
+        assertEquals(0, out[5]);
+    }
+
+    @Test
+    void normalizedDequantizedVectorKeepsTheCosine() {
+        Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            float[] query = randomUnit(random, 512);
+            float[] source = randomUnit(random, 512);
+            float exact = VectorMath.dot(query, source);
+
+            float reranked = VectorMath.dot(query, VectorMath.normalize(QuantizedVector.of(source).toFloats()));
+
+            assertEquals(exact, reranked, 5e-3f);
+        }
+    }
+
+    static float[] randomUnit(Random random, int dim) {
+        float[] vector = new float[dim];
+        for (int d = 0; d < dim; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(vector);
+    }
+}
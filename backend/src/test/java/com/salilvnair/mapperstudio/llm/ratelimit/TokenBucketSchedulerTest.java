@@ -0,0 +1,116 @@
+package com.salilvnair.mapperstudio.llm.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketSchedulerTest {
+
+    private static final long WAIT = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void conversationsTakeTurnsInsteadOfFirstComeFirstServed() throws Exception {
+        // 600 requests per minute: once drained, one admission every 100 ms
+        TokenBucketScheduler scheduler = drained(600);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(enqueue(scheduler, "a", true, "a1", admitted));
+        threads.add(enqueue(scheduler, "a", true, "a2", admitted));
+        threads.add(enqueue(scheduler, "a", true, "a3", admitted));
+        threads.add(enqueue(scheduler, "b", true, "b1", admitted));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of("a1", "b1", "a2", "a3"), admitted);
+        assertEquals(0, scheduler.queued());
+    }
+
+    @Test
+    void interactiveConversationsGoBeforeBackgroundOnes() throws Exception {
+        TokenBucketScheduler scheduler = drained(600);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(enqueue(scheduler, "batch", false, "background1", admitted));
+        threads.add(enqueue(scheduler, "batch", false, "background2", admitted));
+        threads.add(enqueue(scheduler, "user", true, "interactive", admitted));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the waiting background call loses its place at the head as soon as an interactive one queues
+        assertEquals(List.of("interactive", "background1", "background2"), admitted);
+    }
+
+    @Test
+    void aLargeRequestAtTheHeadIsNotOvertakenBySmallOnes() throws Exception {
+        // 60000 tokens per minute (1000 per second); the big call needs half a second of refill
+        TokenBucketScheduler scheduler = new TokenBucketScheduler(0, 60_000);
+        assertEquals(0L, scheduler.acquire("drain", true, 60_000, WAIT));
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(enqueue(scheduler, "big", true, 500, "big", admitted));
+        threads.add(enqueue(scheduler, "small", true, 10, "small1", admitted));
+        threads.add(enqueue(scheduler, "small", true, 10, "small2", admitted));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of("big", "small1", "small2"), admitted);
+    }
+
+    @Test
+    void givingUpTakesNothingAndEstimatesTheWait() throws Exception {
+        TokenBucketScheduler scheduler = drained(600);
+
+        long wait = scheduler.acquire("a", true, 0, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertTrue(wait > 0L);
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, scheduler.queued());
+        assertEquals(0L, scheduler.acquire("b", true, 0, WAIT));
+    }
+
+    private static TokenBucketScheduler drained(long requestsPerMinute) throws InterruptedException {
+        TokenBucketScheduler scheduler = new TokenBucketScheduler(requestsPerMinute, 0);
+        for (int i = 0; i < requestsPerMinute; i++) {
+            assertEquals(0L, scheduler.acquire("drain", true, 0, WAIT));
+        }
+        return scheduler;
+    }
+
+    private static Thread enqueue(TokenBucketScheduler scheduler, String conversation, boolean interactive, String name, List<String> admitted)
+            throws InterruptedException {
+        return enqueue(scheduler, conversation, interactive, 0, name, admitted);
+    }
+
+    /**
+     * Starts a caller and waits until its ticket is queued, so tickets enter the queue in call order.
+     */
+    private static Thread enqueue(TokenBucketScheduler scheduler, String conversation, boolean interactive, long tokens, String name, List<String> admitted)
+            throws InterruptedException {
+        int before = scheduler.queued();
+        Thread thread = Thread.ofVirtual().start(() -> {
+            try {
+                if (scheduler.acquire(conversation, interactive, tokens, WAIT) == 0L) {
+                    admitted.add(name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (scheduler.queued() <= before && thread.isAlive()) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
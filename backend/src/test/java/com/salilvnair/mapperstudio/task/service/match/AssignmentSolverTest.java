@@ -0,0 +1,115 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssignmentSolverTest {
+
+    @Test
+    void givesUpAGreedyPickWhenALaterTargetNeedsTheSource() {
+        CandidateGraph graph = CandidateGraph.builder(2, 2, 4)
+                .offer(0, 0, 0.90d)
+                .offer(0, 1, 0.80d)
+                .offer(1, 0, 0.85d)
+                .build();
+
+        AssignmentSolver.Assignment assignment = solver(true).solve(graph);
+
+        assertTrue(assignment.optimal());
+        assertEquals(1, assignment.source(0));
+        assertEquals(0, assignment.source(1));
+        assertEquals(0.80d, assignment.score(0), 1e-9d);
+    }
+
+    @Test
+    void fallsBackToGreedyWhenDisabled() {
+        CandidateGraph graph = CandidateGraph.builder(2, 2, 4)
+                .offer(0, 0, 0.90d)
+                .offer(0, 1, 0.80d)
+                .offer(1, 0, 0.85d)
+                .build();
+
+        AssignmentSolver.Assignment assignment = solver(false).solve(graph);
+
+        assertFalse(assignment.optimal());
+        assertEquals(0, assignment.source(0));
+        assertEquals(-1, assignment.source(1));
+        assertEquals(0d, assignment.score(1));
+    }
+
+    @Test
+    void targetsWithoutCandidatesStayUnmapped() {
+        CandidateGraph graph = CandidateGraph.builder(3, 1, 4)
+                .offer(1, 0, 0.5d)
+                .build();
+
+        AssignmentSolver.Assignment assignment = solver(true).solve(graph);
+
+        assertEquals(-1, assignment.source(0));
+        assertEquals(0, assignment.source(1));
+        assertEquals(-1, assignment.source(2));
+    }
+
+    @Test
+    void totalScoreIsTheMaximumOverAllMatchings() {
+        Random random = new Random(5);
+        for (int round = 0; round < 30; round++) {
+            int targets = 5;
+            int sources = 4;
+            double[][] scores = new double[targets][sources];
+            CandidateGraph.Builder builder = CandidateGraph.builder(targets, sources, sources);
+            for (int t = 0; t < targets; t++) {
+                for (int s = 0; s < sources; s++) {
+                    if (random.nextInt(3) > 0) {
+                        scores[t][s] = Math.round(random.nextDouble() * 100d) / 100d;
+                        builder.offer(t, s, scores[t][s]);
+                    }
+                }
+            }
+
+            AssignmentSolver.Assignment assignment = solver(true).solve(builder.build());
+
+            double total = 0d;
+            boolean[] taken = new boolean[sources];
+            for (int t = 0; t < targets; t++) {
+                int s = assignment.source(t);
+                if (s >= 0) {
+                    assertFalse(taken[s], "source " + s + " assigned twice");
+                    taken[s] = true;
+                    total += scores[t][s];
+                }
+            }
+            assertTrue(assignment.optimal());
+            assertEquals(best(scores, 0, new boolean[sources]), total, 1e-6d);
+        }
+    }
+
+    private static double best(double[][] scores, int target, boolean[] taken) {
+        if (target == scores.length) {
+            return 0d;
+        }
+        double best = best(scores, target + 1, taken);
+        for (int s = 0; s < taken.length; s++) {
+            if (!taken[s] && scores[target][s] > 0d) {
+                taken[s] = true;
+                best = Math.max(best, scores[target][s] + best(scores, target + 1, taken));
+                taken[s] = false;
+            }
+        }
+        return best;
+    }
+
+    private static AssignmentSolver solver(boolean enabled) {
+        AssignmentSolver solver = new AssignmentSolver();
+        ReflectionTestUtils.setField(solver, "enabled", enabled);
+        ReflectionTestUtils.setField(solver, "candidatesPerTarget", 16);
+        ReflectionTestUtils.setField(solver, "budgetMillis", 2000L);
+        return solver;
+    }
+}
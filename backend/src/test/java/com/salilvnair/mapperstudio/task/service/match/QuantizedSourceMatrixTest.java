@@ -0,0 +1,119 @@
+package com.salilvnair.mapperstudio.task.service.match;
+
+import com.salilvnair.mapperstudio.llm.embedding.VectorMath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedSourceMatrixTest {
+
+    private static final int DIM = 64;
+
+    @Test
+    void rerankedShortlistMatchesTheExactTopK() {
+        Random random = new Random(3);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnit(random);
+        }
+        int[] rows = IntStream.range(0, vectors.length).toArray();
+        QuantizedSourceMatrix matrix = QuantizedSourceMatrix.build(vectors, rows, DIM);
+        int[] positions = new int[32];
+        float[] scores = new float[32];
+
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomUnit(random);
+            int found = matrix.shortlist(query, 32, positions, scores);
+            assertEquals(32, found);
+
+            Integer[] reranked = Arrays.stream(positions).boxed().toArray(Integer[]::new);
+            Arrays.sort(reranked, Comparator.comparingDouble(p -> -VectorMath.dot(query, vectors[p])));
+            Integer[] exact = IntStream.range(0, vectors.length).boxed().toArray(Integer[]::new);
+            Arrays.sort(exact, Comparator.comparingDouble(p -> -VectorMath.dot(query, vectors[p])));
+
+            assertArrayEquals(Arrays.copyOf(exact, 10), Arrays.copyOf(reranked, 10), "query " + q);
+        }
+    }
+
+    @Test
+    void shortlistIsBestFirstWithLowerPositionOnTies() {
+        float[][] vectors = {
+                {0f, 1f},
+                {1f, 0f},
+                {1f, 0f},
+                {1f, 1f}
+        };
+        QuantizedSourceMatrix matrix = QuantizedSourceMatrix.build(vectors, new int[]{0, 1, 2, 3}, 2);
+        int[] positions = new int[3];
+        float[] scores = new float[3];
+
+        int found = matrix.shortlist(new float[]{1f, 0f}, 3, positions, scores);
+
+        assertEquals(3, found);
+        assertArrayEquals(new int[]{1, 2, 3}, positions);
+        assertEquals(1f, scores[0], 1e-2f);
+        assertEquals(scores[0], scores[1]);
+        assertEquals(0.707f, scores[2], 1e-2f);
+    }
+
+    @Test
+    void positionsFollowTheRowsArray() {
+        float[][] vectors = {
+                {1f, 0f},
+                {0f, 1f},
+                {0.6f, 0.8f}
+        };
+        QuantizedSourceMatrix matrix = QuantizedSourceMatrix.build(vectors, new int[]{2, 1}, 2);
+        int[] positions = new int[2];
+        float[] scores = new float[2];
+
+        int found = matrix.shortlist(new float[]{0f, 1f}, 2, positions, scores);
+
+        assertEquals(2, matrix.size());
+        assertEquals(2, found);
+        assertArrayEquals(new int[]{1, 0}, positions);
+    }
+
+    @Test
+    void missingOrMisSizedVectorsScoreZero() {
+        float[][] vectors = {
+                null,
+                {1f, 1f, 1f},
+                {0.2f, 1f}
+        };
+        QuantizedSourceMatrix matrix = QuantizedSourceMatrix.build(vectors, new int[]{0, 1, 2}, 2);
+        int[] positions = new int[5];
+        float[] scores = new float[5];
+
+        int found = matrix.shortlist(VectorMath.normalize(new float[]{1f, 1f}), 5, positions, scores);
+
+        assertEquals(3, found);
+        assertEquals(2, positions[0]);
+        assertTrue(scores[0] > 0f);
+        assertEquals(0f, scores[1]);
+        assertEquals(0f, scores[2]);
+    }
+
+    @Test
+    void queryOfTheWrongLengthFindsNothing() {
+        QuantizedSourceMatrix matrix = QuantizedSourceMatrix.build(new float[][]{{1f, 0f}}, new int[]{0}, 2);
+
+        assertEquals(0, matrix.shortlist(new float[]{1f, 0f, 0f}, 1, new int[1], new float[1]));
+        assertEquals(0, matrix.shortlist(new float[2], 1, new int[1], new float[1]));
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] vector = new float[DIM];
+        for (int d = 0; d < DIM; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(vector);
+    }
+}
@@ -57,7 +57,7 @@ const targetTypeOptions = [
 const isJsonTargetType = (type: TargetType) => type === 'JSON' || type === 'JSON_SCHEMA'
 
 type UiToast = {
-  kind: 'success' | 'error'
+  kind: 'success' | 'error' | 'warning'
   title: string
   message: string
   infoChip?: string
@@ -146,6 +146,19 @@ function parseMissing(contextJson: string): string[] {
   return []
 }
 
+function parseDeferral(contextJson: string): { deferred: boolean; retryAfterMs: number } {
+  try {
+    const ctx = JSON.parse(contextJson)
+    return {
+      deferred: ctx?.deferred === true,
+      retryAfterMs: typeof ctx?.retryAfterMs === 'number' ? ctx.retryAfterMs : 0
+    }
+  } catch {
+    // ignore
+  }
+  return { deferred: false, retryAfterMs: 0 }
+}
+
 function toEditableRows(rows: MappingSuggestion[]): EditableMapping[] {
   return rows.map((row, idx) => ({
     ...row,
@@ -397,6 +410,10 @@ export default function App() {
     setToast({ kind: 'success', title: 'Response Received', message, infoChip: 'Success', detail })
   }
 
+  function notifyDeferred(message: string, detail?: string) {
+    setToast({ kind: 'warning', title: 'Provider Busy', message, infoChip: 'Deferred', detail })
+  }
+
   function buildMappingPayload(): MappingExportRequest {
     const pathType = sourceType === 'XML' ? 'XML_PATH' : 'JSON_PATH'
     return {
@@ -559,6 +576,13 @@ export default function App() {
         setError(msg)
         notifyError(msg, 'Backend handled the failure gracefully. Check audit timeline for details.', 'Backend')
         appendAuditError('ENGINE_KNOWN_FAILURE', msg, res.conversationId)
+      } else if (res.state === 'DEFERRED' || parseDeferral(res.contextJson).deferred) {
+        const { retryAfterMs } = parseDeferral(res.contextJson)
+        const wait = retryAfterMs > 0 ? `Send the message again in about ${Math.ceil(retryAfterMs / 1000)}s.` : 'Send the message again shortly.'
+        notifyDeferred(
+          res.state === 'DEFERRED' ? 'The model provider is rate limiting requests.' : 'Some AI suggestions were skipped: the model provider is rate limiting requests.',
+          wait
+        )
       } else {
         notifySuccess('Response received')
       }